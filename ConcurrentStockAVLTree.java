@@ -0,0 +1,390 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Thread-safe portfolio tree for many readers per writer.
+//
+// Copy-on-write: published nodes are never modified. A buy or sell copies the
+// O(log n) nodes on its path (and the few a rotation touches), builds the new
+// version under a writer lock and publishes it with one volatile write of
+// root. Readers take no lock at all: search, the aggregates and cursors read
+// whatever root was current when they started and always see a complete,
+// balanced version of the portfolio, never a half-done rotation.
+//
+// Because versions are immutable, snapshot() is O(1): exports, reports and
+// history views hold on to one version and stream it at leisure while trading
+// continues. The last `retainedVersions` versions are also kept for
+// point-in-time queries (snapshotAt, snapshotAsOf); unreferenced older ones
+// are garbage collected, sharing every unchanged subtree with newer ones.
+//
+// Nodes handed out by search() and cursors are snapshots and must not be
+// modified.
+public class ConcurrentStockAVLTree {
+    private volatile Snapshot current = new Snapshot(null, 0);
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicReferenceArray<Snapshot> retained;
+
+    // One immutable version of the portfolio.
+    public static final class Snapshot {
+        final StockNode root;
+        final long version;
+        final long createdMillis;
+
+        Snapshot(StockNode root, long version) {
+            this.root = root;
+            this.version = version;
+            this.createdMillis = System.currentTimeMillis();
+        }
+
+        // Number of writes that led to this version.
+        public long version() {
+            return version;
+        }
+
+        public long createdMillis() {
+            return createdMillis;
+        }
+
+        public StockNode search(String stockName) {
+            return ConcurrentStockAVLTree.search(root, stockName);
+        }
+
+        public int size() {
+            return ConcurrentStockAVLTree.size(root);
+        }
+
+        public long totalQuantity() {
+            return ConcurrentStockAVLTree.totalQuantity(root);
+        }
+
+        public double totalCost() {
+            return ConcurrentStockAVLTree.totalCost(root);
+        }
+
+        // Cursor over this version only.
+        public Cursor cursor() {
+            return new Cursor(null, this);
+        }
+
+        // Portfolio rows in sorted order.
+        public void writeRows(PortfolioSnapshot.RowSink sink) {
+            Cursor cursor = cursor().seek("");
+            for (StockNode node; (node = cursor.next()) != null; )
+                sink.row(node.stockName, node.quantity, node.averagePrice);
+        }
+
+        public void exportToCSV(String filename) {
+            long started = Metrics.EXPORT_CSV.start();
+            try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(filename)))) {
+                writer.println("Stock Name,Quantity,Average Price");
+                writeRows((stockName, quantity, averagePrice) ->
+                        writer.println(stockName + "," + quantity + "," + averagePrice));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            Metrics.EXPORT_CSV.stop(started);
+        }
+    }
+
+    // Keeps only the current version.
+    public ConcurrentStockAVLTree() {
+        this(1);
+    }
+
+    public ConcurrentStockAVLTree(int retainedVersions) {
+        this.retained = new AtomicReferenceArray<>(Math.max(1, retainedVersions));
+        retained.set(0, current);
+    }
+
+    static int height(StockNode node) {
+        return (node == null) ? 0 : node.height;
+    }
+
+    static int size(StockNode node) {
+        return (node == null) ? 0 : node.size;
+    }
+
+    static long totalQuantity(StockNode node) {
+        return (node == null) ? 0 : node.totalQuantity;
+    }
+
+    static double totalCost(StockNode node) {
+        return (node == null) ? 0 : node.totalCost;
+    }
+
+    static int getBalance(StockNode node) {
+        return (node == null) ? 0 : height(node.left) - height(node.right);
+    }
+
+    // Recompute height and subtree aggregates of a private (unpublished) node.
+    static StockNode update(StockNode node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.size = size(node.left) + size(node.right) + 1;
+        node.totalQuantity = totalQuantity(node.left) + totalQuantity(node.right) + node.quantity;
+        node.totalCost = totalCost(node.left) + totalCost(node.right) + node.averagePrice * node.quantity;
+        return node;
+    }
+
+    static StockNode copy(StockNode node) {
+        StockNode c = new StockNode(node.stockName, node.quantity, node.averagePrice);
+        c.left = node.left;
+        c.right = node.right;
+        c.height = node.height;
+        c.size = node.size;
+        c.totalQuantity = node.totalQuantity;
+        c.totalCost = node.totalCost;
+        return c;
+    }
+
+    // Rotations copy both nodes they relink, so published subtrees stay intact.
+    static StockNode rightRotate(StockNode y) {
+        StockNode x = copy(y.left);
+        y = copy(y);
+        y.left = x.right;
+        x.right = update(y);
+        return update(x);
+    }
+
+    static StockNode leftRotate(StockNode x) {
+        StockNode y = copy(x.right);
+        x = copy(x);
+        x.right = y.left;
+        y.left = update(x);
+        return update(y);
+    }
+
+    // `node` is a private copy whose children are final for this write.
+    static StockNode rebalance(StockNode node) {
+        update(node);
+        int balance = getBalance(node);
+        if (balance > 1) {
+            if (getBalance(node.left) < 0) node.left = leftRotate(node.left);
+            return rightRotate(node);
+        }
+        if (balance < -1) {
+            if (getBalance(node.right) > 0) node.right = rightRotate(node.right);
+            return leftRotate(node);
+        }
+        return node;
+    }
+
+    static StockNode insert(StockNode node, String stockName, long key, int quantity, double price) {
+        if (node == null) return new StockNode(stockName, quantity, price);
+        int cmp = StockAVLTree.compare(stockName, key, node);
+        StockNode c = copy(node);
+        if (cmp < 0) c.left = insert(node.left, stockName, key, quantity, price);
+        else if (cmp > 0) c.right = insert(node.right, stockName, key, quantity, price);
+        else {
+            double totalCost = node.averagePrice * node.quantity + price * quantity;
+            c.quantity += quantity;
+            c.averagePrice = totalCost / c.quantity;
+            return update(c);
+        }
+        return rebalance(c);
+    }
+
+    // Caller has checked the stock is held in at least `quantity`.
+    static StockNode delete(StockNode node, String stockName, long key, int quantity) {
+        if (node == null) return null;
+        int cmp = StockAVLTree.compare(stockName, key, node);
+        StockNode c;
+        if (cmp < 0) {
+            c = copy(node);
+            c.left = delete(node.left, stockName, key, quantity);
+        } else if (cmp > 0) {
+            c = copy(node);
+            c.right = delete(node.right, stockName, key, quantity);
+        } else if (node.quantity > quantity) {
+            c = copy(node);
+            c.quantity -= quantity;
+            return update(c);
+        } else if (node.left == null || node.right == null) {
+            return (node.left != null) ? node.left : node.right;
+        } else {
+            StockNode successor = node.right;
+            while (successor.left != null) successor = successor.left;
+            c = new StockNode(successor.stockName, successor.quantity, successor.averagePrice);
+            c.left = node.left;
+            c.right = delete(node.right, successor.stockName, successor.sortKey, successor.quantity);
+        }
+        return rebalance(c);
+    }
+
+    static StockNode search(StockNode node, String stockName) {
+        long key = SymbolTable.sortKey(stockName);
+        while (node != null) {
+            int cmp = StockAVLTree.compare(stockName, key, node);
+            if (cmp == 0) return node;
+            node = (cmp < 0) ? node.left : node.right;
+        }
+        return null;
+    }
+
+    // Called with writeLock held.
+    private void publish(StockNode root) {
+        Snapshot next = new Snapshot(root, current.version + 1);
+        retained.set((int) (next.version % retained.length()), next);
+        current = next;
+    }
+
+    public void insert(String stockName, int quantity, double price) {
+        writeLock.lock();
+        try {
+            publish(insert(current.root, stockName, SymbolTable.sortKey(stockName), quantity, price));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Sell `quantity`; returns false (and changes nothing) if not enough is held.
+    public boolean delete(String stockName, int quantity) {
+        writeLock.lock();
+        try {
+            StockNode root = current.root;
+            StockNode node = search(root, stockName);
+            if (node == null || node.quantity < quantity) return false;
+            publish(delete(root, stockName, SymbolTable.sortKey(stockName), quantity));
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Replace the contents with a portfolio CSV, bulk-built in O(n) by a
+    // private StockAVLTree whose nodes are then published as they are. The
+    // whole file is read first, so a failed read publishes nothing.
+    public void loadCSV(File file) throws IOException {
+        StockAVLTree.Rows rows = new StockAVLTree.Rows();
+        PortfolioSnapshot.readCSV(file.toPath(), rows::add);
+        bulkLoad(rows);
+    }
+
+    // Replace the contents with loaded rows (a snapshot), the same way.
+    public void bulkLoad(StockAVLTree.Rows rows) {
+        StockAVLTree loaded = new StockAVLTree();
+        loaded.bulkLoad(rows);
+        publishLoaded(loaded);
+    }
+
+    private void publishLoaded(StockAVLTree loaded) {
+        writeLock.lock();
+        try {
+            publish(loaded.root);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // The current version, in O(1).
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    // A retained version, or null if it is too old (or not yet written).
+    public Snapshot snapshotAt(long version) {
+        Snapshot s = retained.get((int) (version % retained.length()));
+        return (s != null && s.version == version) ? s : null;
+    }
+
+    // The newest retained version created at or before epochMillis, or null.
+    public Snapshot snapshotAsOf(long epochMillis) {
+        Snapshot best = null;
+        for (int i = 0; i < retained.length(); i++) {
+            Snapshot s = retained.get(i);
+            if (s != null && s.createdMillis <= epochMillis && (best == null || s.version > best.version))
+                best = s;
+        }
+        return best;
+    }
+
+    public StockNode search(String stockName) {
+        return search(current.root, stockName);
+    }
+
+    public int size() {
+        return size(current.root);
+    }
+
+    public long totalQuantity() {
+        return totalQuantity(current.root);
+    }
+
+    public double totalCost() {
+        return totalCost(current.root);
+    }
+
+    // Portfolio rows in sorted order from one consistent version; takes no
+    // lock, so a checkpoint never blocks trades.
+    public void writeRows(PortfolioSnapshot.RowSink sink) {
+        current.writeRows(sink);
+    }
+
+    public void exportToCSV(String filename) {
+        current.exportToCSV(filename);
+    }
+
+    // Holdings in name order, from a fixed snapshot or from the version current
+    // at the last seek.
+    public static class Cursor {
+        private final ConcurrentStockAVLTree tree;
+        private final Snapshot fixed;
+        private StockNode[] stack = new StockNode[32];
+        private int depth;
+        private String to;  // inclusive upper bound, or null
+        private long toKey;
+
+        Cursor(ConcurrentStockAVLTree tree, Snapshot fixed) {
+            this.tree = tree;
+            this.fixed = fixed;
+        }
+
+        // Start at the first holding whose name is >= key; no upper bound.
+        public Cursor seek(String key) {
+            depth = 0;
+            to = null;
+            long sortKey = SymbolTable.sortKey(key);
+            StockNode node = (fixed != null ? fixed : tree.current).root;
+            while (node != null) {
+                if (StockAVLTree.compare(key, sortKey, node) <= 0) {
+                    push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            return this;
+        }
+
+        // Holdings named from `from` to `to`, both inclusive.
+        public Cursor range(String from, String to) {
+            seek(from);
+            this.to = to;
+            this.toKey = SymbolTable.sortKey(to);
+            return this;
+        }
+
+        // The next holding in name order, or null once the scan is done.
+        public StockNode next() {
+            if (depth == 0) return null;
+            StockNode node = stack[--depth];
+            if (to != null && StockAVLTree.compare(to, toKey, node) < 0) {
+                depth = 0;
+                return null;
+            }
+            for (StockNode n = node.right; n != null; n = n.left) push(n);
+            return node;
+        }
+
+        private void push(StockNode node) {
+            if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+            stack[depth++] = node;
+        }
+    }
+
+    public Cursor cursor() {
+        return new Cursor(this, null);
+    }
+}
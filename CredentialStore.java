@@ -0,0 +1,304 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Indexed access to the "username,password" credentials CSV.
+//
+// Lookups go through an open-addressing hash table kept on disk next to the
+// CSV ("username.idx") and memory-mapped, so startup never parses the whole
+// CSV and login / duplicate checks cost O(1) instead of a file scan. Each slot
+// holds the FNV-1a hash of the user name and the byte offset of its CSV line;
+// a hit is confirmed by reading that one line.
+//
+// The index header records how many CSV bytes it covers. Rows appended by
+// anyone else (older code, another process) are indexed on the next call, and
+// a missing, corrupt or stale index is rebuilt from the CSV. Registration
+// appends under an exclusive FileLock on the CSV, so two processes registering
+// at once cannot both claim a name. Lookups hold a shared lock and only read
+// the index; one that finds it behind the CSV updates it under the exclusive
+// lock instead.
+public class CredentialStore {
+    private static final int MAGIC = 0x43524458;  // "CRDX"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 16;      // long offset + 1 (0 = empty), int hash, pad
+    private static final int COVERED_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int SIZE_OFFSET = 20;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final ConcurrentHashMap<String, CredentialStore> STORES = new ConcurrentHashMap<>();
+
+    private final Path csvPath;
+    private final Path indexPath;
+    private final FileChannel csv;
+    private final FileChannel index;
+    private MappedByteBuffer table;
+    private int capacity;
+    private final ByteBuffer lineBuffer = ByteBuffer.allocate(512);
+
+    @SuppressWarnings("try")  // the locks below are held, never referenced
+    private CredentialStore(String csvFile) throws IOException {
+        this.csvPath = Paths.get(csvFile);
+        String base = csvFile.endsWith(".csv") ? csvFile.substring(0, csvFile.length() - 4) : csvFile;
+        this.indexPath = Paths.get(base + ".idx");
+        this.csv = FileChannel.open(csvPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.index = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try (FileLock lock = csv.lock()) {
+            if (!validIndex()) resize(INITIAL_CAPACITY, false);
+            catchUp();
+        }
+    }
+
+    // The shared store for a credentials file, opened on first use.
+    public static CredentialStore forFile(String csvFile) throws IOException {
+        CredentialStore store = STORES.get(csvFile);
+        if (store != null) return store;
+        synchronized (STORES) {
+            store = STORES.get(csvFile);
+            if (store == null) {
+                store = new CredentialStore(csvFile);
+                STORES.put(csvFile, store);
+            }
+            return store;
+        }
+    }
+
+    public synchronized boolean exists(String username) throws IOException {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        return lookup(name, null) >= 0;
+    }
+
+    public synchronized boolean authenticate(String username, String password) throws IOException {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        return lookup(name, password.getBytes(StandardCharsets.UTF_8)) >= 0;
+    }
+
+    // find() under the shared lock while the index is current. Otherwise the
+    // shared lock is dropped and the index brought up to date under the
+    // exclusive one, as register() does.
+    @SuppressWarnings("try")
+    private long lookup(byte[] name, byte[] password) throws IOException {
+        try (FileLock lock = csv.lock(0, Long.MAX_VALUE, true)) {
+            if (current()) return find(name, name.length, password);
+        }
+        try (FileLock lock = csv.lock()) {
+            refresh();
+            return find(name, name.length, password);
+        }
+    }
+
+    // Append a new user; false (and nothing written) if the name is taken.
+    @SuppressWarnings("try")
+    public synchronized boolean register(String username, String password) throws IOException {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        try (FileLock lock = csv.lock()) {
+            refresh();
+            if (find(name, name.length, null) >= 0) return false;
+
+            long offset = csv.size();
+            boolean needsNewline = offset > 0 && lastByte(offset) != '\n';
+            if (needsNewline) offset++;
+            byte[] row = ((needsNewline ? "\n" : "") + username + "," + password + "\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            ByteBuffer bytes = ByteBuffer.wrap(row);
+            long position = csv.size();
+            while (bytes.hasRemaining()) position += csv.write(bytes, position);
+            csv.force(false);
+
+            insert(hash(name, 0, name.length), offset);
+            table.putLong(COVERED_OFFSET, position);
+            return true;
+        }
+    }
+
+    private byte lastByte(long size) throws IOException {
+        ByteBuffer one = ByteBuffer.allocate(1);
+        csv.read(one, size - 1);
+        return one.get(0);
+    }
+
+    // Whether the mapped table is the index on disk and covers the whole CSV.
+    // Reads only, so it is safe under the shared lock.
+    private boolean current() throws IOException {
+        return table.getInt(CAPACITY_OFFSET) == capacity
+                && index.size() == HEADER_SIZE + (long) capacity * SLOT_SIZE
+                && table.getLong(COVERED_OFFSET) == csv.size();
+    }
+
+    // Bring the index up to date with the CSV: remap if another process grew
+    // the table, rebuild if the CSV shrank, index any appended rows.
+    private void refresh() throws IOException {
+        if (table.getInt(CAPACITY_OFFSET) != capacity
+                || index.size() != HEADER_SIZE + (long) capacity * SLOT_SIZE)
+            map();
+        long covered = table.getLong(COVERED_OFFSET);
+        long size = csv.size();
+        if (size == covered) return;
+        if (size < covered) resize(capacity, false);
+        catchUp();
+    }
+
+    private boolean validIndex() throws IOException {
+        if (index.size() < HEADER_SIZE) return false;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        index.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getShort() != VERSION) return false;
+        header.getShort();
+        long covered = header.getLong();
+        int cap = header.getInt();
+        if (Integer.bitCount(cap) != 1 || index.size() != HEADER_SIZE + (long) cap * SLOT_SIZE)
+            return false;
+        if (covered > csv.size()) return false;
+        map();
+        return true;
+    }
+
+    private void map() throws IOException {
+        table = index.map(FileChannel.MapMode.READ_WRITE, 0, index.size());
+        capacity = table.getInt(CAPACITY_OFFSET);
+    }
+
+    // Re-create the table at `newCapacity`, carrying over the current entries
+    // or starting empty (CSV to be re-scanned from the top).
+    private void resize(int newCapacity, boolean keepEntries) throws IOException {
+        long[] offsets = new long[0];
+        int[] hashes = new int[0];
+        long covered = 0;
+        int n = 0;
+        if (keepEntries) {
+            offsets = new long[table.getInt(SIZE_OFFSET)];
+            hashes = new int[offsets.length];
+            for (int slot = 0; slot < capacity; slot++) {
+                long stored = table.getLong(slotOffset(slot));
+                if (stored != 0) {
+                    offsets[n] = stored - 1;
+                    hashes[n++] = table.getInt(slotOffset(slot) + 8);
+                }
+            }
+            covered = table.getLong(COVERED_OFFSET);
+        }
+        table = null;
+        index.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(covered)
+              .putInt(newCapacity).putInt(0);
+        header.clear();
+        index.write(header, 0);
+        // Extend with zeroed slots.
+        index.write(ByteBuffer.allocate(1), HEADER_SIZE + (long) newCapacity * SLOT_SIZE - 1);
+        map();
+        for (int i = 0; i < n; i++) insert(hashes[i], offsets[i]);
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private void insert(int hash, long lineOffset) throws IOException {
+        int size = table.getInt(SIZE_OFFSET);
+        if ((size + 1) * 2 > capacity) resize(capacity * 2, true);
+        int slot = hash & (capacity - 1);
+        while (table.getLong(slotOffset(slot)) != 0) slot = (slot + 1) & (capacity - 1);
+        table.putLong(slotOffset(slot), lineOffset + 1);
+        table.putInt(slotOffset(slot) + 8, hash);
+        table.putInt(SIZE_OFFSET, table.getInt(SIZE_OFFSET) + 1);
+    }
+
+    // Index every complete CSV line past the covered length. Names are hashed
+    // straight from the bytes; a name already present keeps its first row.
+    private void catchUp() throws IOException {
+        long covered = table.getLong(COVERED_OFFSET);
+        long size = csv.size();
+        if (covered >= size) return;
+        try (InputStream in = new BufferedInputStream(Channels.newInputStream(
+                FileChannel.open(csvPath, StandardOpenOption.READ).position(covered)), 1 << 16)) {
+            byte[] name = new byte[256];
+            int nameLength = 0;
+            boolean inName = true;
+            long lineStart = covered;
+            long position = covered;
+            int b;
+            while (position < size && (b = in.read()) >= 0) {
+                position++;
+                if (b == '\n') {
+                    if ((!inName || nameLength > 0) && find(name, nameLength, null) < 0)
+                        insert(hash(name, 0, nameLength), lineStart);
+                    table.putLong(COVERED_OFFSET, position);
+                    lineStart = position;
+                    nameLength = 0;
+                    inName = true;
+                } else if (inName) {
+                    if (b == ',') inName = false;
+                    else if (b != '\r') {
+                        if (nameLength == name.length) name = Arrays.copyOf(name, nameLength * 2);
+                        name[nameLength++] = (byte) b;
+                    }
+                }
+            }
+        }
+    }
+
+    // Offset of the row for name[0, nameLength) (and `password`, when given), or -1.
+    private long find(byte[] name, int nameLength, byte[] password) throws IOException {
+        int hash = hash(name, 0, nameLength);
+        int slot = hash & (capacity - 1);
+        long stored;
+        while ((stored = table.getLong(slotOffset(slot))) != 0) {
+            if (table.getInt(slotOffset(slot) + 8) == hash) {
+                long offset = stored - 1;
+                if (rowMatches(offset, name, nameLength, password)) return offset;
+                // Same name but wrong password: names are unique, stop here.
+                if (password != null && rowMatches(offset, name, nameLength, null)) return -1;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+        return -1;
+    }
+
+    // Compare the CSV row at `offset` against name[,password] without decoding it.
+    private boolean rowMatches(long offset, byte[] name, int nameLength, byte[] password)
+            throws IOException {
+        int needed = nameLength + 1 + (password == null ? 0 : password.length + 1);
+        ByteBuffer buf = needed <= lineBuffer.capacity() ? lineBuffer : ByteBuffer.allocate(needed);
+        buf.clear();
+        buf.limit(needed);
+        while (buf.hasRemaining()) {
+            if (csv.read(buf, offset + buf.position()) < 0) break;
+        }
+        int n = buf.position();
+        int i = 0;
+        for (int j = 0; j < nameLength; j++) {
+            if (i >= n || buf.get(i++) != name[j]) return false;
+        }
+        if (i >= n) return password == null;
+        byte next = buf.get(i++);
+        if (password == null) return next == ',' || next == '\n' || next == '\r';
+        if (next != ',') return false;
+        for (byte b : password) {
+            if (i >= n || buf.get(i++) != b) return false;
+        }
+        if (i >= n) return true;
+        byte end = buf.get(i);
+        return end == ',' || end == '\n' || end == '\r';
+    }
+
+    // FNV-1a.
+    private static int hash(byte[] bytes, int from, int to) {
+        int h = 0x811C9DC5;
+        for (int i = from; i < to; i++) {
+            h ^= bytes[i] & 0xFF;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
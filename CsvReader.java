@@ -0,0 +1,323 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+// Byte-level reader for the app's CSV files (portfolio, history, orders).
+//
+// The file is read into one reusable direct buffer, a window at a time; rows
+// are split in place and handed to a callback as field offsets into that
+// buffer. parseInt and parseDouble work on the bytes, so a row of numbers
+// creates no Strings at all; string() decodes a field on demand and symbol()
+// returns a cached String for fields that repeat (tickers, BUY/SELL).
+//
+// Fields are split on every comma: the app never writes quoted fields. A CR
+// before the LF is dropped. A reader is not thread-safe, but can be reused
+// for any number of files.
+public final class CsvReader {
+    public interface RowHandler {
+        void row(CsvReader row) throws IOException;
+    }
+
+    private static final int WINDOW = 1 << 20;
+    private static final int INTERNED = 1024;  // power of two
+    // Significant digits that fit a long mantissa.
+    private static final int MAX_DIGITS = 18;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(WINDOW);
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int fields;
+    private int lineNumber;
+    private long base;       // file offset of buffer index 0
+    private int lineStart;   // buffer index of the current row
+    private byte[] scratch = new byte[64];
+    private final String[] interned = new String[INTERNED];
+
+    // Every line of the file, including an unterminated last one.
+    public void readAll(Path file, RowHandler handler) throws IOException {
+        read(file, 0, true, handler);
+    }
+
+    // Every complete line from byte offset `from` on; an unterminated last
+    // line (one still being appended) is left alone. Returns the offset just
+    // past the last line handled.
+    public long readLines(Path file, long from, RowHandler handler) throws IOException {
+        return read(file, from, false, handler);
+    }
+
+    private long read(Path file, long from, boolean lastLine, RowHandler handler) throws IOException {
+        lineNumber = 0;
+        base = from;
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long filled = from;
+            while (true) {
+                boolean eof = false;
+                while (buffer.hasRemaining()) {
+                    int n = channel.read(buffer, filled);
+                    if (n < 0) {
+                        eof = true;
+                        break;
+                    }
+                    filled += n;
+                }
+                int limit = buffer.position();
+                int start = 0;
+                int newline;
+                while ((newline = split(start, limit)) >= 0) {
+                    handle(start, handler);
+                    start = newline + 1;
+                }
+                if (eof) {
+                    if (lastLine && start < limit) {
+                        split(start, limit);
+                        handle(start, handler);
+                        start = limit;
+                    }
+                    return base + start;
+                }
+                // Carry the partial last line over to the next window.
+                if (start == 0) {
+                    ByteBuffer wider = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                    buffer.flip();
+                    wider.put(buffer);
+                    buffer = wider;
+                } else {
+                    buffer.limit(limit).position(start);
+                    buffer.compact();
+                    base += start;
+                }
+            }
+        }
+    }
+
+    private void handle(int start, RowHandler handler) throws IOException {
+        lineNumber++;
+        lineStart = start;
+        handler.row(this);
+    }
+
+    // Record the fields of the row at `start`; returns the index of its LF, or
+    // -1 (fields then run to `limit`).
+    private int split(int start, int limit) {
+        fields = 0;
+        int fieldStart = start;
+        for (int i = start; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == ',') {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            } else if (b == '\n') {
+                addField(fieldStart, (i > fieldStart && buffer.get(i - 1) == '\r') ? i - 1 : i);
+                return i;
+            }
+        }
+        addField(fieldStart, (limit > fieldStart && buffer.get(limit - 1) == '\r') ? limit - 1 : limit);
+        return -1;
+    }
+
+    private void addField(int from, int to) {
+        if (fields == starts.length) {
+            starts = Arrays.copyOf(starts, fields * 2);
+            ends = Arrays.copyOf(ends, fields * 2);
+        }
+        starts[fields] = from;
+        ends[fields] = to;
+        fields++;
+    }
+
+    // 1-based, counted from the offset the read started at.
+    public int lineNumber() {
+        return lineNumber;
+    }
+
+    // File offset of the current row.
+    public long offset() {
+        return base + lineStart;
+    }
+
+    public int fieldCount() {
+        return fields;
+    }
+
+    public int length(int field) {
+        return ends[field] - starts[field];
+    }
+
+    // True if the row has nothing but whitespace.
+    public boolean isBlank() {
+        for (int i = starts[0]; i < ends[fields - 1]; i++)
+            if (!isSpace(buffer.get(i))) return false;
+        return true;
+    }
+
+    public String string(int field) {
+        int from = starts[field], n = ends[field] - from;
+        if (scratch.length < n) scratch = new byte[Math.max(n, scratch.length * 2)];
+        for (int i = 0; i < n; i++) scratch[i] = buffer.get(from + i);
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    // Same as string(), but a field equal to a recently seen one returns that
+    // String instead of a new one.
+    public String symbol(int field) {
+        int from = starts[field], to = ends[field];
+        int hash = 0;
+        for (int i = from; i < to; i++) hash = 31 * hash + buffer.get(i);
+        int slot = (hash ^ (hash >>> 16)) & (INTERNED - 1);
+        String s = interned[slot];
+        if (s != null && matches(s, from, to, false)) return s;
+        s = string(field);
+        interned[slot] = s;
+        return s;
+    }
+
+    // Compare an ASCII string with a field, ignoring surrounding whitespace
+    // (and case if asked).
+    public boolean fieldEquals(int field, String ascii, boolean ignoreCase) {
+        int from = starts[field], to = ends[field];
+        while (from < to && isSpace(buffer.get(from))) from++;
+        while (to > from && isSpace(buffer.get(to - 1))) to--;
+        return matches(ascii, from, to, ignoreCase);
+    }
+
+    private boolean matches(String s, int from, int to, boolean ignoreCase) {
+        if (s.length() != to - from) return false;
+        for (int i = 0; i < s.length(); i++) {
+            int b = buffer.get(from + i);
+            char c = s.charAt(i);
+            if (b < 0 || (b != c && !(ignoreCase && Character.toUpperCase((char) b) == Character.toUpperCase(c))))
+                return false;
+        }
+        return true;
+    }
+
+    // Unsigned decimal run of `length` digits at `offset` past any leading
+    // whitespace of a field, for fixed-layout values such as timestamps.
+    public int digits(int field, int offset, int length) {
+        int from = starts[field];
+        while (from < ends[field] && isSpace(buffer.get(from))) from++;
+        from += offset;
+        if (offset < 0 || from + length > ends[field]) throw numberFormat(field);
+        int value = 0;
+        for (int i = from; i < from + length; i++) {
+            int d = buffer.get(i) - '0';
+            if (d < 0 || d > 9) throw numberFormat(field);
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    // Integer.parseInt of the field, ignoring surrounding whitespace.
+    public int parseInt(int field) {
+        int i = starts[field], to = ends[field];
+        while (i < to && isSpace(buffer.get(i))) i++;
+        while (to > i && isSpace(buffer.get(to - 1))) to--;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) negative = buffer.get(i++) == '-';
+        if (i == to || to - i > 10) throw numberFormat(field);
+        long value = 0;
+        for (; i < to; i++) {
+            int d = buffer.get(i) - '0';
+            if (d < 0 || d > 9) throw numberFormat(field);
+            value = value * 10 + d;
+        }
+        if (negative) value = -value;
+        if (value != (int) value) throw numberFormat(field);
+        return (int) value;
+    }
+
+    // Double.parseDouble of the field, ignoring surrounding whitespace, with
+    // the same correctly rounded result. Plain decimals are converted from the
+    // bytes: a mantissa below 2^53 and a power of ten up to 10^22 are both
+    // exact doubles, so one multiply or divide rounds correctly. Longer
+    // mantissas (averages as Double.toString writes them, up to 17 digits) are
+    // divided and then checked with an exact remainder; only results within a
+    // hair of a rounding tie, and NaN, hex or huge exponents, go through
+    // Double.parseDouble.
+    public double parseDouble(int field) {
+        int i = starts[field], to = ends[field];
+        while (i < to && isSpace(buffer.get(i))) i++;
+        while (to > i && isSpace(buffer.get(to - 1))) to--;
+        int begin = i;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) negative = buffer.get(i++) == '-';
+        long mantissa = 0;
+        int significant = 0, exponent = 0;
+        boolean any = false, dot = false;
+        for (; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && !dot) {
+                dot = true;
+                continue;
+            }
+            int d = b - '0';
+            if (d < 0 || d > 9) break;
+            any = true;
+            if (mantissa != 0 || d != 0) {
+                if (++significant > MAX_DIGITS) return slowDouble(field);
+                mantissa = mantissa * 10 + d;
+            }
+            if (dot) exponent--;
+        }
+        if (i < to && (buffer.get(i) == 'e' || buffer.get(i) == 'E') && any) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) negativeExponent = buffer.get(i++) == '-';
+            int e = 0, digits = 0;
+            for (; i < to && buffer.get(i) >= '0' && buffer.get(i) <= '9' && digits < 4; i++, digits++)
+                e = e * 10 + buffer.get(i) - '0';
+            if (digits == 0) return slowDouble(field);
+            exponent += negativeExponent ? -e : e;
+        }
+        if (!any || i != to || begin == to) return slowDouble(field);
+        double value = mantissa;
+        if (mantissa != 0 && exponent != 0) {
+            if (exponent < -22 || exponent > 22) return slowDouble(field);
+            if (mantissa < (1L << 53))
+                value = exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent];
+            else if (exponent > 0 || Double.isNaN(value = divideChecked(mantissa, POWERS_OF_TEN[-exponent])))
+                return slowDouble(field);
+        } else if (mantissa >= (1L << 53)) {
+            value = (double) mantissa;  // the long-to-double conversion rounds correctly
+        }
+        return negative ? -value : value;
+    }
+
+    // mantissa / power correctly rounded, or NaN when that cannot be told
+    // cheaply. The quotient q of the rounded mantissa is right unless the true
+    // quotient lies half an ulp or more away from it; the remainder
+    // mantissa - q * power is computed exactly (fma) to check.
+    private static double divideChecked(long mantissa, double power) {
+        double high = mantissa;
+        long low = mantissa - (long) high;
+        double q = high / power;
+        double product = q * power;
+        double remainder = (high - product) + (low - Math.fma(q, power, -product));
+        // At a power of two the gap below is half the ulp above; not worth the case.
+        if ((Double.doubleToRawLongBits(q) & 0xFFFFFFFFFFFFFL) == 0) return Double.NaN;
+        if (Math.abs(remainder) >= power * Math.ulp(q) * 0.4999999) return Double.NaN;
+        return q;
+    }
+
+    private double slowDouble(int field) {
+        return Double.parseDouble(string(field).trim());
+    }
+
+    private NumberFormatException numberFormat(int field) {
+        return new NumberFormatException("For input string: \"" + string(field) + "\"");
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+}
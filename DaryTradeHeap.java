@@ -0,0 +1,181 @@
+package stockTrackerProject;
+
+import java.util.*;
+
+// Max-heap of trades by profit, stored as parallel primitive arrays.
+//
+// Profit, quantity and SymbolTable id live in a double[] and two int[]s, so a sift
+// compares doubles in one contiguous array instead of chasing a pointer to a
+// boxed trade per comparison. The arity is configurable (4 by default): a
+// wider node makes the tree shallower and keeps each node's children in the
+// same cache line, at the price of more compares per level on the way down.
+// Sifts are iterative and move a "hole" instead of swapping, and buildHeap
+// bulk-loads n trades in O(n) with Floyd's bottom-up heapify.
+public class DaryTradeHeap {
+    private final int arity;
+    private double[] profits;
+    private int[] quantities;
+    private int[] symbolIds;
+    private int size;
+
+    public DaryTradeHeap() {
+        this(4, 16);
+    }
+
+    public DaryTradeHeap(int arity, int initialCapacity) {
+        if (arity < 2) throw new IllegalArgumentException("arity must be at least 2: " + arity);
+        this.arity = arity;
+        int capacity = Math.max(1, initialCapacity);
+        profits = new double[capacity];
+        quantities = new int[capacity];
+        symbolIds = new int[capacity];
+    }
+
+    public int arity() {
+        return arity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int symbolId(String stockName) {
+        return SymbolTable.global().id(stockName);
+    }
+
+    public String symbolName(int symbolId) {
+        return SymbolTable.global().name(symbolId);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= profits.length) return;
+        int capacity = Math.max(needed, profits.length + (profits.length >> 1) + 1);
+        profits = Arrays.copyOf(profits, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        symbolIds = Arrays.copyOf(symbolIds, capacity);
+    }
+
+    public void insert(String stockName, int quantity, double profit) {
+        insert(symbolId(stockName), quantity, profit);
+    }
+
+    public void insert(int symbolId, int quantity, double profit) {
+        ensureCapacity(size + 1);
+        siftUp(size++, profit, quantity, symbolId);
+    }
+
+    // Bulk load: append all trades, then heapify once in O(n) instead of
+    // n sift-ups in O(n log n).
+    public void buildHeap(String[] stockNames, int[] quantities, double[] profits, int count) {
+        ensureCapacity(size + count);
+        for (int i = 0; i < count; i++) {
+            this.symbolIds[size] = symbolId(stockNames[i]);
+            this.quantities[size] = quantities[i];
+            this.profits[size] = profits[i];
+            size++;
+        }
+        heapify();
+    }
+
+    public void buildHeap(int[] symbolIds, int[] quantities, double[] profits, int count) {
+        ensureCapacity(size + count);
+        for (int i = 0; i < count; i++) {
+            this.symbolIds[size] = symbolIds[i];
+            this.quantities[size] = quantities[i];
+            this.profits[size] = profits[i];
+            size++;
+        }
+        heapify();
+    }
+
+    private void heapify() {
+        if (size < 2) return;
+        for (int i = (size - 2) / arity; i >= 0; i--)
+            siftDown(i, profits[i], quantities[i], symbolIds[i]);
+    }
+
+    // Top of the heap; undefined when empty.
+    public double maxProfit() {
+        return profits[0];
+    }
+
+    public int maxQuantity() {
+        return quantities[0];
+    }
+
+    public int maxSymbolId() {
+        return symbolIds[0];
+    }
+
+    public String maxStockName() {
+        return symbolName(symbolIds[0]);
+    }
+
+    // Drop the most profitable trade (read it with the max* accessors first).
+    public void removeMax() {
+        if (size == 0) throw new NoSuchElementException("heap is empty");
+        size--;
+        if (size > 0) siftDown(0, profits[size], quantities[size], symbolIds[size]);
+    }
+
+    // Raw access in heap order, e.g. to copy the trades out.
+    public double profitAt(int i) {
+        return profits[i];
+    }
+
+    public int quantityAt(int i) {
+        return quantities[i];
+    }
+
+    public int symbolIdAt(int i) {
+        return symbolIds[i];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // Move the hole at i up until its parent is at least as profitable.
+    private void siftUp(int i, double profit, int quantity, int symbolId) {
+        while (i > 0) {
+            int parent = (i - 1) / arity;
+            if (profits[parent] >= profit) break;
+            profits[i] = profits[parent];
+            quantities[i] = quantities[parent];
+            symbolIds[i] = symbolIds[parent];
+            i = parent;
+        }
+        profits[i] = profit;
+        quantities[i] = quantity;
+        symbolIds[i] = symbolId;
+    }
+
+    // Move the hole at i down past every child more profitable than `profit`.
+    private void siftDown(int i, double profit, int quantity, int symbolId) {
+        while (true) {
+            int first = i * arity + 1;
+            if (first >= size) break;
+            int last = Math.min(first + arity, size);
+            int best = first;
+            double bestProfit = profits[first];
+            for (int c = first + 1; c < last; c++) {
+                if (profits[c] > bestProfit) {
+                    best = c;
+                    bestProfit = profits[c];
+                }
+            }
+            if (bestProfit <= profit) break;
+            profits[i] = bestProfit;
+            quantities[i] = quantities[best];
+            symbolIds[i] = symbolIds[best];
+            i = best;
+        }
+        profits[i] = profit;
+        quantities[i] = quantity;
+        symbolIds[i] = symbolId;
+    }
+}
@@ -0,0 +1,315 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Firm-wide position per ticker: total quantity and cost basis summed over
+// every user's portfolio, for operations.
+//
+// Every "<user>_portfolio" in a directory is found by any of its files (a user
+// who has only traded since snapshots existed may have no CSV) and loaded as
+// login would: the snapshot, or the CSV, then the journal records newer than
+// it. The journal is read without truncating a torn tail, so portfolios open
+// in a running session are left alone. Portfolios load in parallel on a
+// bounded pool; each one's rows are kept as its contribution to the totals.
+//
+// refresh() is incremental: a portfolio is reloaded only when the size or
+// modification time of its CSV, snapshot or journal changed, and its old
+// contribution is subtracted before the new one is added. A portfolio whose
+// files are gone is subtracted. With nothing changed a refresh costs a
+// directory listing and a few stats per user.
+public final class FirmExposure implements Closeable {
+    private static final String SUFFIX = "_portfolio";
+    private static final String[] EXTENSIONS = {".csv", ".snap", ".wal"};
+    private static final int SNAPSHOT = 2;  // the snapshot's size and time in a stamp
+    // Loads retried when a checkpoint replaced the snapshot mid-load.
+    private static final int MAX_ATTEMPTS = 3;
+
+    // Firm-wide totals for one ticker.
+    public static final class Position {
+        private final String symbol;
+        long quantity;
+        double cost;  // sum of quantity * average price
+        int holders;
+
+        Position(String symbol) {
+            this.symbol = symbol;
+        }
+
+        Position(Position other) {
+            this(other.symbol);
+            quantity = other.quantity;
+            cost = other.cost;
+            holders = other.holders;
+        }
+
+        public String symbol() { return symbol; }
+        public long quantity() { return quantity; }
+        public double cost() { return cost; }
+        public int holders() { return holders; }
+
+        // Quantity-weighted average cost across holders.
+        public double averageCost() {
+            return quantity == 0 ? 0 : cost / quantity;
+        }
+    }
+
+    // One portfolio's rows as last loaded, and the file stamps they match.
+    private static final class Holding {
+        final long[] stamp;
+        final StockAVLTree.Rows rows;
+
+        Holding(long[] stamp, StockAVLTree.Rows rows) {
+            this.stamp = stamp;
+            this.rows = rows;
+        }
+    }
+
+    private final Path directory;
+    private final ExecutorService loaders;
+    private final boolean ownsLoaders;
+    private final Map<String, Holding> holdings = new HashMap<>();
+    private final Map<String, Position> positions = new HashMap<>();
+    private long shares;
+    private double cost;
+
+    // Loads on a pool of -Dstock.exposure.threads threads (default one per
+    // core), owned and shut down by close().
+    public FirmExposure(Path directory) {
+        this(directory, Executors.newFixedThreadPool(
+                Integer.getInteger("stock.exposure.threads", Runtime.getRuntime().availableProcessors()), r -> {
+                    Thread t = new Thread(r, "firm-exposure-loader");
+                    t.setDaemon(true);
+                    return t;
+                }), true);
+    }
+
+    // Loads on the caller's executor, which close() leaves running.
+    public FirmExposure(Path directory, ExecutorService loaders) {
+        this(directory, loaders, false);
+    }
+
+    private FirmExposure(Path directory, ExecutorService loaders, boolean ownsLoaders) {
+        this.directory = directory;
+        this.loaders = loaders;
+        this.ownsLoaders = ownsLoaders;
+    }
+
+    // Bring the totals up to date with the portfolios on disk; returns the
+    // number of portfolios loaded or dropped. A portfolio that fails to load
+    // keeps its previous contribution and is retried on the next refresh.
+    public synchronized int refresh() throws IOException {
+        long started = Metrics.EXPOSURE_REFRESH.start();
+        try {
+            Map<String, long[]> current = new HashMap<>();
+            for (String portfolio : discover()) current.put(portfolio, stamp(portfolio));
+
+            int changed = 0;
+            for (Iterator<Map.Entry<String, Holding>> it = holdings.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Holding> e = it.next();
+                if (!current.containsKey(e.getKey())) {
+                    apply(e.getValue().rows, -1);
+                    it.remove();
+                    changed++;
+                }
+            }
+
+            List<String> stale = new ArrayList<>();
+            List<Callable<Holding>> loads = new ArrayList<>();
+            for (Map.Entry<String, long[]> e : current.entrySet()) {
+                Holding held = holdings.get(e.getKey());
+                if (held != null && Arrays.equals(held.stamp, e.getValue())) continue;
+                String portfolio = e.getKey();
+                stale.add(portfolio);
+                loads.add(() -> load(portfolio));
+            }
+            List<Future<Holding>> loaded;
+            try {
+                loaded = loaders.invokeAll(loads);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted loading portfolios");
+            }
+            for (int i = 0; i < loaded.size(); i++) {
+                Holding fresh;
+                try {
+                    fresh = loaded.get(i).get();
+                } catch (ExecutionException e) {
+                    System.err.println("Skipping portfolio " + stale.get(i) + ": " + e.getCause());
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted loading portfolios");
+                }
+                Holding old = holdings.put(stale.get(i), fresh);
+                if (old != null) apply(old.rows, -1);
+                apply(fresh.rows, 1);
+                changed++;
+            }
+            return changed;
+        } finally {
+            Metrics.EXPOSURE_REFRESH.stop(started);
+        }
+    }
+
+    // "<dir>/<user>_portfolio.csv" for every user with a CSV, snapshot or
+    // journal, in the form PortfolioSnapshot.load and TradeJournal take.
+    private Set<String> discover() throws IOException {
+        Set<String> portfolios = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                "*" + SUFFIX + "{.csv,.snap,.wal}")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String base = name.substring(0, name.lastIndexOf('.'));
+                portfolios.add(directory.resolve(base + ".csv").toString());
+            }
+        }
+        return portfolios;
+    }
+
+    // Size and modification time of each of a portfolio's files, -1 if absent.
+    private static long[] stamp(String portfolio) {
+        String base = portfolio.substring(0, portfolio.length() - 4);
+        long[] stamp = new long[EXTENSIONS.length * 2];
+        for (int i = 0; i < EXTENSIONS.length; i++) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(
+                        Paths.get(base + EXTENSIONS[i]), BasicFileAttributes.class);
+                stamp[2 * i] = attributes.size();
+                stamp[2 * i + 1] = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            } catch (IOException e) {
+                stamp[2 * i] = stamp[2 * i + 1] = -1;
+            }
+        }
+        return stamp;
+    }
+
+    // The portfolio as login would rebuild it. Journal appends during the
+    // load are harmless (the records read are a prefix), but checkpoints
+    // between reading the snapshot and the journal move records the old
+    // snapshot lacks out of the logs (replay then fails on the gap), so the
+    // load is repeated while the snapshot keeps changing under it. The stamp
+    // taken before the load is kept, so anything written meanwhile is picked
+    // up by the next refresh.
+    private static Holding load(String portfolio) throws IOException {
+        long[] stamp = stamp(portfolio);
+        for (int attempt = 1; ; attempt++) {
+            StockAVLTree.Rows rows = new StockAVLTree.Rows();
+            StockAVLTree tree = new StockAVLTree();
+            IOException failure = null;
+            try {
+                long lsn = PortfolioSnapshot.load(portfolio, rows::add);
+                tree.bulkLoad(rows);
+                TradeJournal.replay(portfolio, lsn, (type, stock, qty, price) -> {
+                    if (type == TradeJournal.BUY) {
+                        tree.insert(stock, qty, price);
+                    } else {
+                        // Checked first: StockAVLTree.delete reports an
+                        // over-sell with a dialog, which fails headless.
+                        StockNode held = tree.search(stock);
+                        if (held != null && held.quantity >= qty) tree.delete(stock, qty);
+                    }
+                });
+            } catch (IOException e) {
+                failure = e;
+            }
+            long[] after = stamp(portfolio);
+            if ((after[SNAPSHOT] == stamp[SNAPSHOT] && after[SNAPSHOT + 1] == stamp[SNAPSHOT + 1])
+                    || attempt == MAX_ATTEMPTS) {
+                if (failure != null) throw failure;
+                StockAVLTree.Rows current = new StockAVLTree.Rows();
+                tree.writeRows(current::add);
+                return new Holding(stamp, current);
+            }
+            stamp = after;
+        }
+    }
+
+    // Add (sign 1) or subtract (sign -1) one portfolio's rows. A ticker
+    // nobody holds any more is dropped, which also discards the rounding a
+    // long run of subtractions leaves in its cost.
+    private void apply(StockAVLTree.Rows rows, int sign) {
+        for (int i = 0; i < rows.count; i++) {
+            if (rows.quantities[i] <= 0) continue;
+            Position p = positions.computeIfAbsent(rows.names[i], Position::new);
+            double rowCost = rows.quantities[i] * rows.prices[i];
+            p.quantity += sign * (long) rows.quantities[i];
+            p.cost += sign * rowCost;
+            p.holders += sign;
+            shares += sign * (long) rows.quantities[i];
+            cost += sign * rowCost;
+            if (p.holders == 0) positions.remove(p.symbol);
+        }
+        if (positions.isEmpty()) cost = 0;
+    }
+
+    public synchronized Position position(String symbol) {
+        Position p = positions.get(symbol);
+        return p == null ? null : new Position(p);
+    }
+
+    // Copies of every position, by symbol.
+    public synchronized List<Position> positions() {
+        List<Position> copy = new ArrayList<>(positions.size());
+        for (Position p : positions.values()) copy.add(new Position(p));
+        copy.sort(Comparator.comparing(Position::symbol));
+        return copy;
+    }
+
+    public synchronized int portfolios() {
+        return holdings.size();
+    }
+
+    public synchronized long totalQuantity() {
+        return shares;
+    }
+
+    public synchronized double totalCost() {
+        return cost;
+    }
+
+    // Summary line and the `limit` largest positions by cost basis.
+    public synchronized String format(int limit) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d symbols in %d portfolios, %d shares, cost basis %.2f%n",
+                positions.size(), holdings.size(), shares, cost));
+        List<Position> byCost = new ArrayList<>(positions.values());
+        byCost.sort(Comparator.comparingDouble(Position::cost).reversed().thenComparing(Position::symbol));
+        sb.append(String.format("%n%-12s %8s %14s %12s %16s%n",
+                "Symbol", "Holders", "Quantity", "Avg Cost", "Cost Basis"));
+        for (Position p : byCost.subList(0, Math.min(limit, byCost.size())))
+            sb.append(String.format("%-12s %8d %14d %12.4f %16.2f%n",
+                    p.symbol, p.holders, p.quantity, p.averageCost(), p.cost));
+        if (byCost.size() > limit) sb.append("... ").append(byCost.size() - limit).append(" more\n");
+        return sb.toString();
+    }
+
+    @Override
+    public void close() {
+        if (ownsLoaders) loaders.shutdown();
+    }
+
+    //   FirmExposure [directory] [watch-seconds]
+    // Prints the firm-wide positions of every portfolio in the directory
+    // (default the working directory); with a period, refreshes that often
+    // and reprints whenever a portfolio changed.
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : ".");
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        try (FirmExposure exposure = new FirmExposure(directory)) {
+            exposure.refresh();
+            System.out.print(exposure.format(20));
+            while (seconds > 0) {
+                Thread.sleep(seconds * 1000);
+                int changed = exposure.refresh();
+                if (changed > 0) {
+                    System.out.printf("%n%d portfolios changed%n", changed);
+                    System.out.print(exposure.format(20));
+                }
+            }
+        }
+    }
+}
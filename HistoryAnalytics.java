@@ -0,0 +1,382 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.time.zone.ZoneRules;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// Aggregates over transaction histories: per-symbol buy/sell counts, traded
+// volume, VWAP and realized P&L, and trades per local day and hour of day.
+//
+// Histories are read through their binary HistoryFile mirrors, whose
+// fixed-width records split at any row into contiguous byte ranges. A
+// fork-join task halves its range until it is small enough, sums its rows
+// into primitive arrays indexed by symbol id and merges with its sibling on
+// the way back up. The ranges of every file are forked together, so one run
+// over all users' histories keeps every core busy. Realized P&L depends on
+// each symbol's running cost basis, so it comes from HistoryReplay, which
+// splits by symbol instead, in the same pool.
+public final class HistoryAnalytics {
+    // Fewest rows a leaf task scans.
+    static final int MIN_LEAF_ROWS = 1 << 15;
+
+    private HistoryAnalytics() {
+    }
+
+    // Totals for one symbol.
+    public static final class SymbolStats {
+        private final String symbol;
+        long buys, sells;
+        long boughtShares, soldShares;
+        double notional;  // sum of price * quantity
+        double realizedProfit;
+
+        SymbolStats(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String symbol() { return symbol; }
+        public long buys() { return buys; }
+        public long sells() { return sells; }
+        public long boughtShares() { return boughtShares; }
+        public long soldShares() { return soldShares; }
+        public long volume() { return boughtShares + soldShares; }
+        public double realizedProfit() { return realizedProfit; }
+
+        // Volume-weighted average price over buys and sells.
+        public double vwap() {
+            long volume = volume();
+            return volume == 0 ? 0 : notional / volume;
+        }
+    }
+
+    // Trades in one day or hour of day.
+    public static final class Bucket {
+        long trades;
+        long volume;
+        double notional;
+
+        public long trades() { return trades; }
+        public long volume() { return volume; }
+
+        public double vwap() {
+            return volume == 0 ? 0 : notional / volume;
+        }
+
+        void add(long trades, long volume, double notional) {
+            this.trades += trades;
+            this.volume += volume;
+            this.notional += notional;
+        }
+    }
+
+    public static final class Report {
+        private final TreeMap<String, SymbolStats> symbols = new TreeMap<>();
+        private final TreeMap<LocalDate, Bucket> days = new TreeMap<>();
+        private final Bucket[] hours = new Bucket[24];
+        private int files;
+        private long trades;
+
+        Report() {
+            for (int h = 0; h < hours.length; h++) hours[h] = new Bucket();
+        }
+
+        // By symbol name.
+        public Collection<SymbolStats> symbols() { return symbols.values(); }
+        public SymbolStats symbol(String name) { return symbols.get(name); }
+        public NavigableMap<LocalDate, Bucket> days() { return days; }
+        // Local hour of day 0-23.
+        public Bucket hour(int hour) { return hours[hour]; }
+        public int files() { return files; }
+        public long trades() { return trades; }
+
+        public double realizedProfit() {
+            double total = 0;
+            for (SymbolStats s : symbols.values()) total += s.realizedProfit;
+            return total;
+        }
+
+        // Text tables: the `limit` symbols with the most volume, the last
+        // `limit` days, and every hour with trades.
+        public String format(int limit) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%d trades in %d histories, %d symbols, realized P&L %.2f%n",
+                    trades, files, symbols.size(), realizedProfit()));
+
+            List<SymbolStats> byVolume = new ArrayList<>(symbols.values());
+            byVolume.sort(Comparator.comparingLong(SymbolStats::volume).reversed()
+                    .thenComparing(SymbolStats::symbol));
+            sb.append(String.format("%n%-12s %8s %8s %12s %12s %14s%n",
+                    "Symbol", "Buys", "Sells", "Volume", "VWAP", "Realized P&L"));
+            for (SymbolStats s : byVolume.subList(0, Math.min(limit, byVolume.size())))
+                sb.append(String.format("%-12s %8d %8d %12d %12.4f %14.2f%n",
+                        s.symbol, s.buys, s.sells, s.volume(), s.vwap(), s.realizedProfit));
+            if (byVolume.size() > limit) sb.append("... ").append(byVolume.size() - limit).append(" more\n");
+
+            sb.append(String.format("%n%-12s %8s %12s %12s%n", "Day", "Trades", "Volume", "VWAP"));
+            int skip = Math.max(0, days.size() - limit);
+            for (Map.Entry<LocalDate, Bucket> e : days.entrySet()) {
+                if (skip-- > 0) continue;
+                Bucket b = e.getValue();
+                sb.append(String.format("%-12s %8d %12d %12.4f%n", e.getKey(), b.trades, b.volume, b.vwap()));
+            }
+
+            sb.append(String.format("%n%-12s %8s %12s %12s%n", "Hour", "Trades", "Volume", "VWAP"));
+            for (int h = 0; h < hours.length; h++) {
+                Bucket b = hours[h];
+                if (b.trades > 0)
+                    sb.append(String.format("%02d:00        %8d %12d %12.4f%n", h, b.trades, b.volume, b.vwap()));
+            }
+            return sb.toString();
+        }
+    }
+
+    // Sums over a range of one file's rows, indexed by that file's symbol ids.
+    private static final class Partial {
+        final long[] buys, sells, boughtShares, soldShares;
+        final double[] notional;
+        final long[] hourTrades = new long[24], hourVolume = new long[24];
+        final double[] hourNotional = new double[24];
+        // Local epoch day -> slot; rows are nearly chronological, so the last
+        // day is checked before the map.
+        final Map<Long, Integer> daySlots = new HashMap<>();
+        long[] dayKeys = new long[8], dayTrades = new long[8], dayVolume = new long[8];
+        double[] dayNotional = new double[8];
+        int dayCount;
+        long lastDay = Long.MIN_VALUE;
+        int lastSlot;
+
+        Partial(int symbols) {
+            buys = new long[symbols];
+            sells = new long[symbols];
+            boughtShares = new long[symbols];
+            soldShares = new long[symbols];
+            notional = new double[symbols];
+        }
+
+        void addDay(long day, long trades, long volume, double value) {
+            if (day != lastDay) {
+                Integer slot = daySlots.get(day);
+                if (slot == null) {
+                    if (dayCount == dayKeys.length) {
+                        dayKeys = Arrays.copyOf(dayKeys, dayCount * 2);
+                        dayTrades = Arrays.copyOf(dayTrades, dayCount * 2);
+                        dayVolume = Arrays.copyOf(dayVolume, dayCount * 2);
+                        dayNotional = Arrays.copyOf(dayNotional, dayCount * 2);
+                    }
+                    dayKeys[dayCount] = day;
+                    slot = dayCount++;
+                    daySlots.put(day, slot);
+                }
+                lastDay = day;
+                lastSlot = slot;
+            }
+            dayTrades[lastSlot] += trades;
+            dayVolume[lastSlot] += volume;
+            dayNotional[lastSlot] += value;
+        }
+
+        // Add `other` into this one.
+        Partial merge(Partial other) {
+            for (int i = 0; i < buys.length; i++) {
+                buys[i] += other.buys[i];
+                sells[i] += other.sells[i];
+                boughtShares[i] += other.boughtShares[i];
+                soldShares[i] += other.soldShares[i];
+                notional[i] += other.notional[i];
+            }
+            for (int h = 0; h < 24; h++) {
+                hourTrades[h] += other.hourTrades[h];
+                hourVolume[h] += other.hourVolume[h];
+                hourNotional[h] += other.hourNotional[h];
+            }
+            for (int d = 0; d < other.dayCount; d++)
+                addDay(other.dayKeys[d], other.dayTrades[d], other.dayVolume[d], other.dayNotional[d]);
+            return this;
+        }
+    }
+
+    // Rows [from, to) of one history.
+    private static final class RangeTask extends RecursiveTask<Partial> {
+        private final HistoryFile history;
+        private final int symbols;
+        private final long from, to, leafRows;
+
+        RangeTask(HistoryFile history, int symbols, long from, long to, long leafRows) {
+            this.history = history;
+            this.symbols = symbols;
+            this.from = from;
+            this.to = to;
+            this.leafRows = leafRows;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= leafRows) return scan();
+            long middle = (from + to) >>> 1;
+            RangeTask right = new RangeTask(history, symbols, middle, to, leafRows);
+            right.fork();
+            Partial left = new RangeTask(history, symbols, from, middle, leafRows).compute();
+            return left.merge(right.join());
+        }
+
+        private Partial scan() {
+            Partial p = new Partial(symbols);
+            ZoneRules zone = ZoneId.systemDefault().getRules();
+            long cachedHour = Long.MIN_VALUE;
+            int offsetSeconds = 0;
+            for (long k = from; k < to; k++) {
+                int symbol = history.symbolId(k);
+                if (symbol >= symbols) continue;
+                int quantity = history.quantity(k);
+                double value = history.price(k) * quantity;
+                if (history.side(k) == HistoryFile.SELL) {
+                    p.sells[symbol]++;
+                    p.soldShares[symbol] += quantity;
+                } else {
+                    p.buys[symbol]++;
+                    p.boughtShares[symbol] += quantity;
+                }
+                p.notional[symbol] += value;
+
+                // Local day and hour; the zone offset is looked up once per UTC hour.
+                long seconds = Math.floorDiv(history.epochNanos(k), 1_000_000_000L);
+                long utcHour = Math.floorDiv(seconds, 3600);
+                if (utcHour != cachedHour) {
+                    offsetSeconds = zone.getOffset(Instant.ofEpochSecond(utcHour * 3600)).getTotalSeconds();
+                    cachedHour = utcHour;
+                }
+                long local = seconds + offsetSeconds;
+                int hour = Math.floorMod(local, 86400) / 3600;
+                p.hourTrades[hour]++;
+                p.hourVolume[hour] += quantity;
+                p.hourNotional[hour] += value;
+                p.addDay(Math.floorDiv(local, 86400), 1, quantity, value);
+            }
+            return p;
+        }
+    }
+
+    // One history: the range pass, then realized P&L by symbol.
+    private static final class FileTask extends RecursiveTask<Partial> {
+        private final HistoryFile history;
+        private final int parallelism;
+        long rows;
+        int symbols;
+        String[] names;
+        double[] realized;
+
+        FileTask(HistoryFile history, int parallelism) {
+            this.history = history;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        protected Partial compute() {
+            // Rows first: every symbol they use is already in the dictionary.
+            rows = history.size();
+            symbols = history.symbolCount();
+            names = new String[symbols];
+            for (int i = 0; i < symbols; i++) names[i] = history.symbol(i);
+            // Leaves big enough that their per-symbol arrays do not outweigh the rows.
+            long leafRows = Math.max(Math.max(MIN_LEAF_ROWS, symbols), rows / (4L * parallelism));
+            RangeTask ranges = new RangeTask(history, symbols, 0, rows, leafRows);
+            ranges.fork();
+            realized = HistoryReplay.realizedProfit(history, rows, symbols);
+            return ranges.join();
+        }
+    }
+
+    public static Report analyze(HistoryFile... histories) {
+        return analyze(Arrays.asList(histories));
+    }
+
+    public static Report analyze(List<HistoryFile> histories) {
+        return analyze(histories, ForkJoinPool.commonPool());
+    }
+
+    public static Report analyze(List<HistoryFile> histories, ForkJoinPool pool) {
+        List<FileTask> tasks = new ArrayList<>();
+        for (HistoryFile history : histories) tasks.add(new FileTask(history, pool.getParallelism()));
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                ForkJoinTask.invokeAll(tasks);
+                return null;
+            }
+        });
+
+        Report report = new Report();
+        for (FileTask task : tasks) {
+            Partial p = task.join();
+            report.files++;
+            for (int i = 0; i < task.symbols; i++) {
+                if (p.buys[i] + p.sells[i] == 0) continue;
+                SymbolStats s = report.symbols.computeIfAbsent(task.names[i], SymbolStats::new);
+                s.buys += p.buys[i];
+                s.sells += p.sells[i];
+                s.boughtShares += p.boughtShares[i];
+                s.soldShares += p.soldShares[i];
+                s.notional += p.notional[i];
+                s.realizedProfit += task.realized[i];
+                report.trades += p.buys[i] + p.sells[i];
+            }
+            for (int h = 0; h < 24; h++) report.hours[h].add(p.hourTrades[h], p.hourVolume[h], p.hourNotional[h]);
+            for (int d = 0; d < p.dayCount; d++)
+                report.days.computeIfAbsent(LocalDate.ofEpochDay(p.dayKeys[d]), day -> new Bucket())
+                        .add(p.dayTrades[d], p.dayVolume[d], p.dayNotional[d]);
+        }
+        return report;
+    }
+
+    // Every "<user>_transaction_history.csv" in a directory.
+    public static Report analyzeAll(Path directory) throws IOException {
+        List<String> csvFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                "*" + TransactionLogger.HISTORY_SUFFIX)) {
+            // Keyed as sessions open them (relative to the working directory),
+            // so a logged-in user's mirror is shared rather than opened twice.
+            Path workingDirectory = Paths.get("").toAbsolutePath();
+            for (Path file : files)
+                csvFiles.add(workingDirectory.relativize(file.toAbsolutePath().normalize()).toString());
+        }
+        return analyzeFiles(csvFiles);
+    }
+
+    // History CSVs that may belong to other users or processes: each is read
+    // through the mirror a session here already has open, else read-only
+    // (HistoryFile.openReadOnly), so nobody else's mirror is written to or
+    // left open after the report.
+    public static Report analyzeFiles(List<String> csvFiles) throws IOException {
+        List<HistoryFile> histories = new ArrayList<>();
+        List<HistoryFile> opened = new ArrayList<>();
+        try {
+            for (String csvFile : csvFiles) {
+                HistoryFile history = HistoryFile.shared(csvFile);
+                if (history == null) opened.add(history = HistoryFile.openReadOnly(csvFile));
+                histories.add(history);
+            }
+            return analyze(histories);
+        } finally {
+            for (HistoryFile history : opened) history.close();
+        }
+    }
+
+    //   HistoryAnalytics [directory | history.csv ...]
+    // Defaults to every history in the working directory.
+    public static void main(String[] args) throws IOException {
+        Report report;
+        if (args.length == 0) {
+            report = analyzeAll(Paths.get("."));
+        } else if (args.length == 1 && Files.isDirectory(Paths.get(args[0]))) {
+            report = analyzeAll(Paths.get(args[0]));
+        } else {
+            report = analyzeFiles(Arrays.asList(args));
+        }
+        System.out.print(report.format(20));
+    }
+}
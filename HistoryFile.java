@@ -0,0 +1,547 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+// Binary, fixed-width mirror of "<user>_transaction_history.csv".
+//
+// "<user>_transaction_history.bin" holds a 32-byte header followed by 32-byte
+// records, so row k lives at HEADER_SIZE + k * RECORD_SIZE and fetching any
+// row or the last page is O(1) through read-only MappedByteBuffers, one per
+// SEGMENT_ROWS rows, so no single mapping approaches the 2 GB buffer limit:
+//
+//   int  symbolId     index into "<user>_transaction_history.sym"
+//   byte side         BUY / SELL
+//   3 bytes padding
+//   int  quantity
+//   long price        fixed point, PRICE_SCALE units
+//   long epochNanos
+//   4 bytes padding
+//
+// The header stores how many bytes of the CSV the records cover, so a CSV
+// appended by older code is caught up on open, and importCSV/exportCSV convert
+// whole files either way.
+//
+// Rows are appended in time order, and "<user>_transaction_history.idx" is a
+// sparse index over them: after a 16-byte header, one long per INDEX_STRIDE
+// rows, the largest epochNanos up to and including row i * INDEX_STRIDE (whose
+// byte offset follows from the fixed record size). The keys never decrease,
+// so between() binary-searches them and reads only the matching slice: O(log n
+// + k) rows instead of a full scan. The index is extended on every append and
+// rebuilt on open if it is missing or does not match the records.
+public class HistoryFile implements Closeable {
+    public static final byte BUY = 1;
+    public static final byte SELL = 2;
+    public static final long PRICE_SCALE = 10_000;
+
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 32;
+    private static final int MAGIC = 0x54584842;  // "TXHB"
+    private static final short VERSION = 1;
+    private static final int SOURCE_LENGTH_OFFSET = 8;
+    static final int INDEX_STRIDE = 256;
+    static final int SEGMENT_ROWS = 1 << 16;  // 2 MB of records per mapping
+    private static final int INDEX_HEADER_SIZE = 16;
+    private static final int INDEX_MAGIC = 0x54584958;  // "TXIX"
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final ConcurrentHashMap<String, HistoryFile> OPEN = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final Path symbolPath;
+    private final FileChannel channel;
+    private final FileChannel indexChannel;  // null if read-only without an index file
+    private final boolean readOnly;
+    private boolean temporary;  // deleted on close
+    private final List<String> symbols = new ArrayList<>();
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    // Mapping of segment s covers rows [s * SEGMENT_ROWS, (s + 1) * SEGMENT_ROWS)
+    // that existed when it was made; the array is replaced, never mutated.
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile long count;
+    private long sourceLength;
+    // Index keys, appended under the monitor; a reader takes the array and
+    // indexSize together under the monitor and searches that prefix.
+    private long[] indexKeys = new long[64];
+    private int indexSize;
+    private long maxEpochNanos = Long.MIN_VALUE;
+    // Zone offset of the local hour last seen by epochNanos.
+    private long cachedLocalHour = Long.MIN_VALUE;
+    private int cachedOffsetSeconds;
+
+    private HistoryFile(Path path) throws IOException {
+        this(path, false);
+    }
+
+    private HistoryFile(Path path, boolean readOnly) throws IOException {
+        this.path = path;
+        this.symbolPath = siblingWithExtension(path, ".sym");
+        this.readOnly = readOnly;
+        this.channel = readOnly ? FileChannel.open(path, StandardOpenOption.READ)
+                : FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() < HEADER_SIZE) {
+            if (readOnly) {
+                channel.close();
+                throw new IOException("Not a transaction history file: " + path);
+            }
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE).putLong(0);
+            header.clear();
+            channel.truncate(0);
+            channel.write(header, 0);
+        } else {
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getShort() != VERSION
+                    || header.getShort() != RECORD_SIZE) {
+                channel.close();
+                throw new IOException("Not a transaction history file: " + path);
+            }
+            sourceLength = header.getLong();
+        }
+        // A torn final record (crash mid-append) is dropped. Counted before the
+        // symbols are read, so every counted row's symbol is already listed.
+        count = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+        if (!readOnly) channel.truncate(HEADER_SIZE + count * RECORD_SIZE);
+        if (Files.exists(symbolPath)) {
+            for (String symbol : Files.readAllLines(symbolPath, StandardCharsets.UTF_8)) {
+                symbolIds.put(symbol, symbols.size());
+                symbols.add(symbol);
+            }
+        }
+        Path indexPath = siblingWithExtension(path, ".idx");
+        if (!readOnly) {
+            this.indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } else {
+            this.indexChannel = Files.exists(indexPath) ? FileChannel.open(indexPath, StandardOpenOption.READ) : null;
+        }
+        if (indexChannel == null || !loadIndex()) rebuildIndex();
+    }
+
+    // Take the index file if it covers exactly the current records (read-only,
+    // at least them: the owner may have appended since); its last key is
+    // checked against the rows it was computed from.
+    private boolean loadIndex() throws IOException {
+        long expected = (count + INDEX_STRIDE - 1) / INDEX_STRIDE;
+        long size = INDEX_HEADER_SIZE + expected * 8;
+        if (readOnly ? indexChannel.size() < size : indexChannel.size() != size) return false;
+        ByteBuffer data = ByteBuffer.allocate((int) size);
+        while (data.hasRemaining() && indexChannel.read(data, data.position()) >= 0) { }
+        data.flip();
+        if (data.getInt() != INDEX_MAGIC || data.getShort() != VERSION || data.getShort() != 0
+                || data.getInt() != INDEX_STRIDE)
+            return false;
+        data.getInt();
+        long[] keys = new long[(int) Math.max(64, expected)];
+        for (int i = 0; i < expected; i++) keys[i] = data.getLong();
+        if (expected > 0) {
+            int last = (int) expected - 1;
+            long max = (last == 0) ? Long.MIN_VALUE : keys[last - 1];
+            for (long k = (last == 0) ? 0 : (long) (last - 1) * INDEX_STRIDE + 1; k <= (long) last * INDEX_STRIDE; k++)
+                max = Math.max(max, epochNanos(k));
+            if (max != keys[last]) return false;
+            for (long k = (long) last * INDEX_STRIDE + 1; k < count; k++) max = Math.max(max, epochNanos(k));
+            maxEpochNanos = max;
+        }
+        indexKeys = keys;
+        indexSize = (int) expected;
+        return true;
+    }
+
+    // Recompute the index from the records and rewrite the file (only in
+    // memory when read-only).
+    private synchronized void rebuildIndex() throws IOException {
+        indexSize = 0;
+        maxEpochNanos = Long.MIN_VALUE;
+        for (long k = 0; k < count; k++) {
+            maxEpochNanos = Math.max(maxEpochNanos, epochNanos(k));
+            if (k % INDEX_STRIDE == 0) addIndexKey(maxEpochNanos, false);
+        }
+        if (readOnly) return;
+        indexChannel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE)
+                .putInt(INDEX_MAGIC).putShort(VERSION).putShort((short) 0).putInt(INDEX_STRIDE).putInt(0);
+        header.flip();
+        indexChannel.write(header, 0);
+        ByteBuffer keys = ByteBuffer.allocate(indexSize * 8);
+        for (int i = 0; i < indexSize; i++) keys.putLong(indexKeys[i]);
+        keys.flip();
+        long position = INDEX_HEADER_SIZE;
+        while (keys.hasRemaining()) position += indexChannel.write(keys, position);
+    }
+
+    private void addIndexKey(long key, boolean write) throws IOException {
+        if (indexSize == indexKeys.length) indexKeys = Arrays.copyOf(indexKeys, indexSize * 2);
+        indexKeys[indexSize] = key;
+        if (write) {
+            ByteBuffer value = ByteBuffer.allocate(8).putLong(key);
+            value.flip();
+            indexChannel.write(value, INDEX_HEADER_SIZE + indexSize * 8L);
+        }
+        indexSize++;
+    }
+
+    // The binary mirror of a history CSV, shared process-wide and caught up with
+    // any CSV rows it has not seen yet.
+    public static HistoryFile forHistory(String csvFile) throws IOException {
+        HistoryFile history = OPEN.get(csvFile);
+        if (history != null) return history;
+        synchronized (OPEN) {
+            history = OPEN.get(csvFile);
+            if (history == null) {
+                history = new HistoryFile(siblingWithExtension(Paths.get(csvFile), ".bin"));
+                history.catchUp(Paths.get(csvFile));
+                OPEN.put(csvFile, history);
+            }
+            return history;
+        }
+    }
+
+    // The shared mirror of a history CSV if this process has it open, else null.
+    static HistoryFile shared(String csvFile) {
+        return OPEN.get(csvFile);
+    }
+
+    // A private, read-only view of the mirror of a history CSV that another
+    // process may be appending to: nothing is caught up, truncated or
+    // rewritten, so rows added since that mirror last caught up are left out.
+    // A CSV without a usable mirror is converted into a temporary one instead,
+    // deleted on close. The caller closes it.
+    public static HistoryFile openReadOnly(String csvFile) throws IOException {
+        Path bin = siblingWithExtension(Paths.get(csvFile), ".bin");
+        if (Files.exists(bin)) {
+            try {
+                return new HistoryFile(bin, true);
+            } catch (IOException e) {
+                System.err.println("Converting " + csvFile + " afresh: " + e.getMessage());
+            }
+        }
+        Path temp = Files.createTempFile("history", ".bin");
+        importCSV(csvFile, temp.toString());
+        HistoryFile history = new HistoryFile(temp, true);
+        history.temporary = true;
+        return history;
+    }
+
+    // Close the shared mirror of a history CSV, if open.
+    public static void release(String csvFile) throws IOException {
+        HistoryFile history = OPEN.remove(csvFile);
+        if (history != null) history.close();
+    }
+
+    private static Path siblingWithExtension(Path file, String extension) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return file.resolveSibling((dot < 0 ? name : name.substring(0, dot)) + extension);
+    }
+
+    // Convert a whole CSV history into a fresh binary file.
+    public static void importCSV(String csvFile, String binFile) throws IOException {
+        Path bin = Paths.get(binFile);
+        Files.deleteIfExists(bin);
+        Files.deleteIfExists(siblingWithExtension(bin, ".sym"));
+        Files.deleteIfExists(siblingWithExtension(bin, ".idx"));
+        try (HistoryFile history = new HistoryFile(bin)) {
+            history.catchUp(Paths.get(csvFile));
+        }
+    }
+
+    // Write the binary history back out as CSV in the original layout.
+    public void exportCSV(String csvFile) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(csvFile)))) {
+            writer.print(TransactionLogger.HEADER);
+            StringBuilder sb = new StringBuilder();
+            for (long k = 0, n = size(); k < n; k++) {
+                sb.setLength(0);
+                writer.println(formatRow(k, sb));
+            }
+        }
+    }
+
+    // Append the CSV rows past the recorded source length; rebuild from scratch
+    // if the CSV shrank or was replaced.
+    private synchronized void catchUp(Path csv) throws IOException {
+        if (!Files.exists(csv)) return;
+        long csvLength = Files.size(csv);
+        if (csvLength == sourceLength) return;
+        if (csvLength < sourceLength) {
+            channel.truncate(HEADER_SIZE);
+            count = 0;
+            segments = new MappedByteBuffer[0];
+            sourceLength = 0;
+            rebuildIndex();
+        }
+        // An unterminated last line is still being written and is left for later.
+        setSourceLength(new CsvReader().readLines(csv, sourceLength, this::appendCSVRow));
+    }
+
+    private void appendCSVRow(CsvReader row) throws IOException {
+        if (row.fieldCount() < 5 || row.fieldEquals(0, "Transaction Type", false)) return;
+        try {
+            append(row.symbol(0), row.symbol(1), row.parseInt(2), row.parseDouble(3), epochNanos(row, 4));
+        } catch (RuntimeException e) {
+            // Skip malformed rows rather than abandoning the whole history.
+        }
+    }
+
+    // "yyyy-MM-dd HH:mm:ss" local time, read digit by digit; the zone offset is
+    // looked up once per local hour.
+    private long epochNanos(CsvReader row, int field) {
+        int year = row.digits(field, 0, 4), month = row.digits(field, 5, 2), day = row.digits(field, 8, 2);
+        int hour = row.digits(field, 11, 2), minute = row.digits(field, 14, 2), second = row.digits(field, 17, 2);
+        if (hour > 23 || minute > 59 || second > 59) throw new DateTimeException("bad time of day");
+        long localHour = LocalDate.of(year, month, day).toEpochDay() * 24 + hour;
+        if (localHour != cachedLocalHour) {
+            cachedOffsetSeconds = ZoneId.systemDefault().getRules()
+                    .getOffset(LocalDateTime.of(year, month, day, hour, 0)).getTotalSeconds();
+            cachedLocalHour = localHour;
+        }
+        return (localHour * 3600 + minute * 60 + second - cachedOffsetSeconds) * 1_000_000_000L;
+    }
+
+
+    // Append one row. The caller records how far into the CSV it has got with
+    // setSourceLength once the matching CSV bytes are written.
+    public synchronized void append(String type, String stockName, int quantity, double price,
+                                    long epochNanos) throws IOException {
+        if (readOnly) throw new IOException("Read-only transaction history: " + path);
+        record.clear();
+        record.putInt(symbolId(stockName))
+              .put(type.equals("SELL") ? SELL : BUY).put((byte) 0).putShort((short) 0)
+              .putInt(quantity)
+              .putLong(Math.round(price * PRICE_SCALE))
+              .putLong(epochNanos)
+              .putInt(0);
+        record.flip();
+        long position = HEADER_SIZE + count * RECORD_SIZE;
+        while (record.hasRemaining())
+            position += channel.write(record, position);
+        maxEpochNanos = Math.max(maxEpochNanos, epochNanos);
+        if (count % INDEX_STRIDE == 0) addIndexKey(maxEpochNanos, true);
+        count++;
+    }
+
+    synchronized void setSourceLength(long length) throws IOException {
+        if (readOnly) throw new IOException("Read-only transaction history: " + path);
+        sourceLength = length;
+        ByteBuffer value = ByteBuffer.allocate(8).putLong(length);
+        value.flip();
+        channel.write(value, SOURCE_LENGTH_OFFSET);
+    }
+
+    private int symbolId(String stockName) throws IOException {
+        Integer id = symbolIds.get(stockName);
+        if (id != null) return id;
+        int next = symbols.size();
+        Files.write(symbolPath, (stockName + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        symbols.add(stockName);
+        symbolIds.put(stockName, next);
+        return next;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    // Index of the first row of the last page of `pageSize` rows.
+    public long lastPageStart(int pageSize) {
+        return Math.max(0, size() - pageSize);
+    }
+
+    // Read-only view of the segment holding row k. Full segments are mapped
+    // once; only the last, still growing one is remapped, and only when row k
+    // is past the end of its current mapping.
+    private MappedByteBuffer mapped(long k) {
+        if (k < 0) throw new IndexOutOfBoundsException("row " + k + " of " + count);
+        int s = (int) (k / SEGMENT_ROWS);
+        int needed = offset(k) + RECORD_SIZE;
+        MappedByteBuffer[] segs = segments;
+        MappedByteBuffer m = (s < segs.length) ? segs[s] : null;
+        if (m != null && m.capacity() >= needed) return m;
+        synchronized (this) {
+            segs = segments;
+            m = (s < segs.length) ? segs[s] : null;
+            if (m == null || m.capacity() < needed) {
+                if (k >= count) throw new IndexOutOfBoundsException("row " + k + " of " + count);
+                long first = (long) s * SEGMENT_ROWS;
+                long rows = Math.min(SEGMENT_ROWS, count - first);
+                try {
+                    m = channel.map(FileChannel.MapMode.READ_ONLY,
+                            HEADER_SIZE + first * RECORD_SIZE, rows * RECORD_SIZE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                segs = Arrays.copyOf(segs, Math.max(segs.length, s + 1));
+                segs[s] = m;
+                segments = segs;
+            }
+            return m;
+        }
+    }
+
+    // Byte offset of row k within its segment's mapping.
+    private static int offset(long k) {
+        return (int) (k % SEGMENT_ROWS) * RECORD_SIZE;
+    }
+
+    public int symbolId(long k) {
+        return mapped(k).getInt(offset(k));
+    }
+
+    public synchronized String stockName(long k) {
+        return symbols.get(symbolId(k));
+    }
+
+    // Id of a symbol, or -1 if it never appears in this history.
+    public synchronized int findSymbol(String stockName) {
+        Integer id = symbolIds.get(stockName);
+        return id == null ? -1 : id;
+    }
+
+    public synchronized int symbolCount() {
+        return symbols.size();
+    }
+
+    public synchronized String symbol(int id) {
+        return symbols.get(id);
+    }
+
+    public byte side(long k) {
+        return mapped(k).get(offset(k) + 4);
+    }
+
+    public String type(long k) {
+        return side(k) == SELL ? "SELL" : "BUY";
+    }
+
+    public int quantity(long k) {
+        return mapped(k).getInt(offset(k) + 8);
+    }
+
+    public long priceFixed(long k) {
+        return mapped(k).getLong(offset(k) + 12);
+    }
+
+    public double price(long k) {
+        return priceFixed(k) / (double) PRICE_SCALE;
+    }
+
+    public long epochNanos(long k) {
+        return mapped(k).getLong(offset(k) + 20);
+    }
+
+    // Rows with fromNanos <= epochNanos < toNanos, in file order, handed to
+    // `rows`; returns how many. The slice starts at the last index entry below
+    // fromNanos and ends at the first one at or above toNanos, so at most two
+    // strides beyond the matches are read. Keys are running maxima, so no row
+    // at or after fromNanos is missed; a row stamped earlier than one before it
+    // (the clock stepped back) can be missed only near toNanos.
+    public long between(long fromNanos, long toNanos, LongConsumer rows) {
+        long[] keys;
+        int size;
+        long total;
+        synchronized (this) {
+            keys = indexKeys;
+            size = indexSize;
+            total = count;
+        }
+        // Last entry with key < fromNanos: every row up to it is earlier.
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < fromNanos) lo = mid + 1; else hi = mid;
+        }
+        long first = (lo == 0) ? 0 : (long) (lo - 1) * INDEX_STRIDE;
+        // First entry with key >= toNanos: its row and everything after are later.
+        hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < toNanos) lo = mid + 1; else hi = mid;
+        }
+        long end = (lo == size) ? total : Math.min(total, (long) lo * INDEX_STRIDE);
+        long matched = 0;
+        for (long k = first; k < end; k++) {
+            long t = epochNanos(k);
+            if (t >= fromNanos && t < toNanos) {
+                rows.accept(k);
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    // Rows from `from` (inclusive) to `to` (exclusive), in local time.
+    public long between(LocalDateTime from, LocalDateTime to, LongConsumer rows) {
+        return between(toEpochNanos(from), toEpochNanos(to), rows);
+    }
+
+    static long toEpochNanos(LocalDateTime time) {
+        Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    public String date(long k) {
+        return DATE_FORMAT.format(LocalDateTime.ofInstant(
+                Instant.ofEpochSecond(0, epochNanos(k)), ZoneId.systemDefault()));
+    }
+
+    // Row k in the CSV layout: type,stock,quantity,price,date.
+    public StringBuilder formatRow(long k, StringBuilder sb) {
+        return sb.append(type(k)).append(',')
+                 .append(stockName(k)).append(',')
+                 .append(quantity(k)).append(',')
+                 .append(price(k)).append(',')
+                 .append(date(k));
+    }
+
+    // Converter for existing files:
+    //   HistoryFile import <history.csv> <history.bin>
+    //   HistoryFile export <history.bin> <history.csv>
+    // and for date-range queries (local days, both inclusive):
+    //   HistoryFile range <history.csv> <yyyy-MM-dd> <yyyy-MM-dd>
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("import")) {
+            importCSV(args[1], args[2]);
+        } else if (args.length == 4 && args[0].equals("range")) {
+            HistoryFile history = forHistory(args[1]);
+            StringBuilder sb = new StringBuilder();
+            long matched = history.between(LocalDate.parse(args[2]).atStartOfDay(),
+                    LocalDate.parse(args[3]).plusDays(1).atStartOfDay(), k -> {
+                        sb.setLength(0);
+                        System.out.println(history.formatRow(k, sb));
+                    });
+            System.out.println(matched + " rows");
+        } else if (args.length == 3 && args[0].equals("export")) {
+            try (HistoryFile history = new HistoryFile(Paths.get(args[1]))) {
+                history.exportCSV(args[2]);
+            }
+        } else {
+            System.out.println("Usage: HistoryFile import <csv> <bin> | export <bin> <csv>"
+                    + " | range <csv> <from-date> <to-date>");
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segments = new MappedByteBuffer[0];
+        channel.close();
+        if (indexChannel != null) indexChannel.close();
+        if (temporary) {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(symbolPath);
+            Files.deleteIfExists(siblingWithExtension(path, ".idx"));
+        }
+    }
+}
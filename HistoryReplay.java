@@ -0,0 +1,243 @@
+package stockTrackerProject;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Rebuilds trading performance from the transaction history at login.
+//
+// The binary HistoryFile is streamed once; per symbol only the running
+// quantity and average cost are kept (two primitive arrays indexed by symbol
+// id), so no rows are retained. Every SELL yields its realized profit,
+// (sell price - average cost) * quantity, exactly as sellStock computed it,
+// and is handed to the sink (typically PerformanceHeap::insert).
+//
+// With TaxLots the history also rebuilds every symbol's open lots: each BUY
+// opens one, numbered by its row, and each SELL's profit comes from the lots
+// it consumes, one trade per lot.
+//
+// A symbol's cost basis only depends on that symbol's own trades, so large
+// files are replayed in parallel: worker w owns the symbols with
+// id % workers == w. A first parallel pass splits the file into row ranges
+// and buckets each row's index by owner, so every row is read once; each
+// worker then replays its buckets range by range, keeping file order.
+public class HistoryReplay {
+    // Files at least this long are replayed in parallel.
+    static final long PARALLEL_THRESHOLD = 1 << 20;
+    private static final int FLUSH_SIZE = 4096;
+
+    // Receives one realized trade per SELL.
+    public interface TradeSink {
+        void trade(String stockName, int quantity, double profit);
+    }
+
+    // Replay the whole history into `sink`; returns the number of SELLs.
+    public static long replay(HistoryFile history, TradeSink sink) {
+        int workers = history.size() >= PARALLEL_THRESHOLD
+                ? Runtime.getRuntime().availableProcessors() : 1;
+        return replay(history, sink, workers);
+    }
+
+    public static long replay(HistoryFile history, TradeSink sink, int workers) {
+        return replay(history, sink, workers, null);
+    }
+
+    // Replay with lot accounting into `lots` (empty beforehand); null means
+    // average cost. Afterwards the lots still need reconciling with the
+    // portfolio (TaxLots.reconcile).
+    public static long replay(HistoryFile history, TradeSink sink, TaxLots lots) {
+        int workers = history.size() >= PARALLEL_THRESHOLD
+                ? Runtime.getRuntime().availableProcessors() : 1;
+        return replay(history, sink, workers, lots);
+    }
+
+    public static long replay(HistoryFile history, TradeSink sink, int workers, TaxLots lots) {
+        long rows = history.size();
+        int symbols = history.symbolCount();
+        long sells;
+        if (workers <= 1 || symbols < 2) {
+            sells = replayPartition(history, rows, symbols, null, 0, 1, sink, null, lots);
+        } else {
+            int parts = Math.min(workers, symbols);
+            RowBucket[][] buckets = bucket(history, rows, symbols, parts);
+            // Each partition fills its own lots (disjoint symbols), merged after.
+            TaxLots[] partLots = new TaxLots[parts];
+            sells = IntStream.range(0, parts).parallel()
+                    .mapToLong(w -> replayPartition(history, rows, symbols, buckets, w, parts, sink, null,
+                            lots == null ? null : (partLots[w] = new TaxLots(lots.method()))))
+                    .sum();
+            if (lots != null) for (TaxLots part : partLots) lots.adopt(part);
+        }
+        if (lots != null) lots.nextLot(rows + 1);
+        return sells;
+    }
+
+    // Realized profit of the first `rows` rows summed per symbol id, for ids
+    // below `symbols`. Partitioned by symbol like replay(); each partition
+    // writes only its own slots.
+    static double[] realizedProfit(HistoryFile history, long rows, int symbols) {
+        double[] realized = new double[symbols];
+        int parts = rows >= PARALLEL_THRESHOLD
+                ? Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), symbols)) : 1;
+        RowBucket[][] buckets = parts > 1 ? bucket(history, rows, symbols, parts) : null;
+        IntStream.range(0, parts).parallel()
+                .forEach(w -> replayPartition(history, rows, symbols, buckets, w, parts, null, realized, null));
+        return realized;
+    }
+
+    // Split the first `rows` rows into `parts` ranges and, for each range,
+    // collect the rows of symbols below `symbols` per owning partition:
+    // buckets[range][symbol % parts], in file order.
+    private static RowBucket[][] bucket(HistoryFile history, long rows, int symbols, int parts) {
+        RowBucket[][] buckets = new RowBucket[parts][];
+        IntStream.range(0, parts).parallel().forEach(r -> {
+            long from = rows * r / parts, to = rows * (r + 1) / parts;
+            RowBucket[] range = new RowBucket[parts];
+            for (int w = 0; w < parts; w++) range[w] = new RowBucket((int) Math.max(16, (to - from) / parts));
+            for (long k = from; k < to; k++) {
+                int symbol = history.symbolId(k);
+                if (symbol < symbols) range[symbol % parts].add(k, symbol);
+            }
+            buckets[r] = range;
+        });
+        return buckets;
+    }
+
+    // Replay the symbols with id % parts == part: the rows in
+    // buckets[*][part], or with no buckets a scan of the first `rows` rows.
+    // Realized trades are summed into `realized` if given, else buffered and
+    // handed to the sink in chunks, under the sink's monitor when parallel.
+    // With lots, SELLs realize against lots instead of the average cost.
+    private static long replayPartition(HistoryFile history, long rows, int symbols, RowBucket[][] buckets,
+                                        int part, int parts, TradeSink sink, double[] realized, TaxLots lots) {
+        Partition partition = new Partition(history, symbols,
+                realized == null ? new Buffer(sink, parts > 1) : null, realized, lots);
+        if (buckets == null) {
+            for (long k = 0; k < rows; k++) {
+                int symbol = history.symbolId(k);
+                if (symbol < symbols) partition.row(k, symbol);
+            }
+        } else {
+            for (RowBucket[] range : buckets) {
+                RowBucket bucket = range[part];
+                for (int i = 0; i < bucket.size; i++) partition.row(bucket.rows[i], bucket.symbols[i]);
+            }
+        }
+        if (partition.out != null) partition.out.flush();
+        return partition.sells;
+    }
+
+    // Row indices with their symbol ids, in file order.
+    private static final class RowBucket {
+        long[] rows;
+        int[] symbols;
+        int size;
+
+        RowBucket(int capacity) {
+            rows = new long[capacity];
+            symbols = new int[capacity];
+        }
+
+        void add(long k, int symbol) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                symbols = Arrays.copyOf(symbols, size * 2);
+            }
+            rows[size] = k;
+            symbols[size++] = symbol;
+        }
+    }
+
+    // Running position and average cost per symbol of one partition.
+    private static final class Partition {
+        private final HistoryFile history;
+        private final long[] held;
+        private final double[] averageCost;
+        private final String[] names;  // resolved once per symbol
+        private final Buffer out;
+        private final double[] realized;
+        private final TaxLots lots;
+        private long sells;
+
+        Partition(HistoryFile history, int symbols, Buffer out, double[] realized, TaxLots lots) {
+            this.history = history;
+            this.held = new long[symbols];
+            this.averageCost = new double[symbols];
+            this.names = new String[symbols];
+            this.out = out;
+            this.realized = realized;
+            this.lots = lots;
+        }
+
+        void row(long k, int symbol) {
+            int quantity = history.quantity(k);
+            double price = history.price(k);
+            if (history.side(k) == HistoryFile.BUY) {
+                // Same arithmetic as StockAVLTree.insert.
+                double totalCost = averageCost[symbol] * held[symbol] + price * quantity;
+                held[symbol] += quantity;
+                averageCost[symbol] = totalCost / held[symbol];
+                if (lots != null) lots.open(name(symbol), k + 1, quantity, price);
+            } else {
+                if (lots != null) {
+                    lots.sell(name(symbol), quantity, price, averageCost[symbol], out);
+                } else {
+                    double profit = (price - averageCost[symbol]) * quantity;
+                    if (realized != null) realized[symbol] += profit;
+                    else out.trade(name(symbol), quantity, profit);
+                }
+                sells++;
+                held[symbol] -= quantity;
+                if (held[symbol] <= 0) {
+                    held[symbol] = 0;
+                    averageCost[symbol] = 0;
+                }
+            }
+        }
+
+        private String name(int symbol) {
+            String name = names[symbol];
+            return name != null ? name : (names[symbol] = history.symbol(symbol));
+        }
+    }
+
+    // Realized trades collected in primitive arrays and handed to the sink in
+    // chunks.
+    private static final class Buffer implements TradeSink {
+        private final TradeSink sink;
+        private final boolean shared;
+        private final String[] names = new String[FLUSH_SIZE];
+        private final int[] quantities = new int[FLUSH_SIZE];
+        private final double[] profits = new double[FLUSH_SIZE];
+        private int pending;
+
+        Buffer(TradeSink sink, boolean shared) {
+            this.sink = sink;
+            this.shared = shared;
+        }
+
+        @Override
+        public void trade(String stockName, int quantity, double profit) {
+            names[pending] = stockName;
+            quantities[pending] = quantity;
+            profits[pending] = profit;
+            if (++pending == FLUSH_SIZE) flush();
+        }
+
+        void flush() {
+            if (pending == 0) return;
+            if (shared) {
+                synchronized (sink) {
+                    drain();
+                }
+            } else {
+                drain();
+            }
+            pending = 0;
+        }
+
+        private void drain() {
+            for (int i = 0; i < pending; i++)
+                sink.trade(names[i], quantities[i], profits[i]);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package stockTrackerProject;
+
+import java.util.*;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+// Table model over the binary transaction history. Cells are read from the
+// mapped HistoryFile on demand, so only the rows JTable actually paints are
+// ever touched. Filtering and sorting build an int[] of row numbers in a
+// SwingWorker instead of materializing rows.
+class HistoryTableModel extends AbstractTableModel {
+    static final int TYPE = 0, STOCK = 1, QUANTITY = 2, PRICE = 3, DATE = 4;
+    private static final String[] COLUMNS = {"Type", "Stock", "Quantity", "Price", "Date"};
+
+    private HistoryFile history;
+    private int rows;         // rows visible without a view
+    private int[] view;       // row numbers in display order, or null for file order
+    private SwingWorker<int[], Void> pending;
+
+    void setHistory(HistoryFile history) {
+        this.history = history;
+        this.rows = (int) history.size();
+        this.view = null;
+        fireTableDataChanged();
+    }
+
+    HistoryFile history() {
+        return history;
+    }
+
+    boolean isFiltered() {
+        return view != null;
+    }
+
+    // Pick up rows appended since the model was loaded (unfiltered view only).
+    void refresh() {
+        if (history == null || view != null) return;
+        int now = (int) history.size();
+        if (now > rows) {
+            int first = rows;
+            rows = now;
+            fireTableRowsInserted(first, now - 1);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        if (history == null) return 0;
+        return view == null ? rows : view.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case QUANTITY: return Integer.class;
+            case PRICE: return Double.class;
+            default: return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        long k = view == null ? row : view[row];
+        switch (column) {
+            case TYPE: return history.type(k);
+            case STOCK: return history.stockName(k);
+            case QUANTITY: return history.quantity(k);
+            case PRICE: return history.price(k);
+            default: return history.date(k);
+        }
+    }
+
+    // Show only rows for `symbol` (blank = any) and `side` (0 = any), ordered by
+    // `sortColumn` (-1 = file order). Runs off the EDT; `done` runs on the EDT
+    // once the new view is in place.
+    void query(String symbol, byte side, int sortColumn, boolean ascending, Runnable done) {
+        if (history == null) return;
+        if (pending != null) pending.cancel(false);
+        HistoryFile h = history;
+        int total = (int) h.size();
+        pending = new SwingWorker<int[], Void>() {
+            @Override
+            protected int[] doInBackground() {
+                int symbolId = symbol.isEmpty() ? -1 : h.findSymbol(symbol);
+                if (!symbol.isEmpty() && symbolId < 0) return new int[0];
+                if (symbolId < 0 && side == 0 && sortColumn < 0) return null;
+
+                int[] matches = new int[16];
+                int n = 0;
+                for (int k = 0; k < total && !isCancelled(); k++) {
+                    if (symbolId >= 0 && h.symbolId(k) != symbolId) continue;
+                    if (side != 0 && h.side(k) != side) continue;
+                    if (n == matches.length) matches = Arrays.copyOf(matches, n * 2);
+                    matches[n++] = k;
+                }
+                matches = Arrays.copyOf(matches, n);
+                if (sortColumn >= 0) sort(h, matches, sortColumn, ascending);
+                return matches;
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) return;
+                try {
+                    view = get();
+                    rows = total;
+                    pending = null;
+                    fireTableDataChanged();
+                    if (done != null) done.run();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        pending.execute();
+    }
+
+    // Stable merge sort of row numbers on a primitive key; no boxing per row.
+    private static void sort(HistoryFile h, int[] rows, int column, boolean ascending) {
+        long[] keys = new long[rows.length];
+        int[] symbolRank = column == STOCK ? symbolRanks(h) : null;
+        for (int i = 0; i < rows.length; i++) {
+            int k = rows[i];
+            switch (column) {
+                case TYPE: keys[i] = h.side(k); break;
+                case STOCK: keys[i] = symbolRank[h.symbolId(k)]; break;
+                case QUANTITY: keys[i] = h.quantity(k); break;
+                case PRICE: keys[i] = h.priceFixed(k); break;
+                default: keys[i] = h.epochNanos(k); break;
+            }
+            if (!ascending) keys[i] = -keys[i];
+        }
+        mergeSort(keys, rows, new long[rows.length], new int[rows.length], 0, rows.length);
+    }
+
+    // Alphabetical position of each symbol id.
+    private static int[] symbolRanks(HistoryFile h) {
+        int count = h.symbolCount();
+        Integer[] ids = new Integer[count];
+        for (int i = 0; i < count; i++) ids[i] = i;
+        Arrays.sort(ids, Comparator.comparing(h::symbol));
+        int[] rank = new int[count];
+        for (int r = 0; r < count; r++) rank[ids[r]] = r;
+        return rank;
+    }
+
+    private static void mergeSort(long[] keys, int[] rows, long[] keyBuf, int[] rowBuf, int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        mergeSort(keys, rows, keyBuf, rowBuf, from, mid);
+        mergeSort(keys, rows, keyBuf, rowBuf, mid, to);
+        if (keys[mid - 1] <= keys[mid]) return;
+        System.arraycopy(keys, from, keyBuf, from, to - from);
+        System.arraycopy(rows, from, rowBuf, from, to - from);
+        int i = from, j = mid, out = from;
+        while (i < mid && j < to) {
+            if (keyBuf[j] < keyBuf[i]) {
+                keys[out] = keyBuf[j];
+                rows[out++] = rowBuf[j++];
+            } else {
+                keys[out] = keyBuf[i];
+                rows[out++] = rowBuf[i++];
+            }
+        }
+        while (i < mid) {
+            keys[out] = keyBuf[i];
+            rows[out++] = rowBuf[i++];
+        }
+        while (j < to) {
+            keys[out] = keyBuf[j];
+            rows[out++] = rowBuf[j++];
+        }
+    }
+}
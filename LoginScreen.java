@@ -4,7 +4,6 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
-import java.util.Scanner;
 
 public class LoginScreen extends JFrame {
     private CardLayout cardLayout;
@@ -97,15 +96,18 @@ public class LoginScreen extends JFrame {
     }
 
     private void loginUser(String username, String password) {
-        try (Scanner scanner = new Scanner(new File(credentialsFile))) {
-            while (scanner.hasNextLine()) {
-                String[] parts = scanner.nextLine().split(",");
-                if (parts.length == 2 && parts[0].equals(username) && parts[1].equals(password)) {
-                    JOptionPane.showMessageDialog(this, "Welcome back, " + username + "!\nLogin successful! ");
-                    dispose();
-                    new StockDashboard(username);
-                    return;
-                }
+        try {
+            boolean authenticated;
+            long started = Metrics.LOGIN.start();
+            try {
+                authenticated = CredentialStore.forFile(credentialsFile).authenticate(username, password);
+            } finally {
+                Metrics.LOGIN.stop(started);
+            }
+            if (authenticated) {
+                JOptionPane.showMessageDialog(this, "Welcome back, " + username + "!\nLogin successful! ");
+                openDashboard(username);
+                return;
             }
             JOptionPane.showMessageDialog(this, "Invalid credentials! Please try again.");
         } catch (IOException ex) {
@@ -114,26 +116,29 @@ public class LoginScreen extends JFrame {
     }
 
     private void registerUser(String username, String password) {
-        try (Scanner scanner = new Scanner(new File(credentialsFile))) {
-            while (scanner.hasNextLine()) {
-                String[] parts = scanner.nextLine().split(",");
-                if (parts.length == 2 && parts[0].equals(username)) {
-                    JOptionPane.showMessageDialog(this, "Username already exists.");
-                    return;
-                }
+        try {
+            if (!CredentialStore.forFile(credentialsFile).register(username, password)) {
+                JOptionPane.showMessageDialog(this, "Username already exists.");
+                return;
             }
-        } catch (IOException ignored) {}
-
-        try (FileWriter fw = new FileWriter(credentialsFile, true)) {
-            fw.write(username + "," + password + "\n");
             JOptionPane.showMessageDialog(this, "Welcome, " + username + "!\nRegistered successfully!");
-            dispose();
-            new StockDashboard(username);
+            openDashboard(username);
         } catch (IOException ex) {
             JOptionPane.showMessageDialog(this, "Error saving user.");
         }
     }
 
+    // Stay on the login screen if the portfolio's trade journal cannot be opened.
+    private void openDashboard(String username) {
+        try {
+            new StockDashboard(username);
+            dispose();
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Could not open the trade journal: " + ex.getMessage()
+                    + "\nLogin failed. Please try again.");
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(LoginScreen::new);
     }
@@ -0,0 +1,237 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.*;
+
+// Process-wide metrics: counters, latency timers and gauges, published as JMX
+// MBeans ("stockTrackerProject:type=Timer,name=buyStock" and so on) and
+// appended as text to a file every few seconds.
+//
+// Off unless -Dstock.metrics=true. ENABLED is a static final, so with metrics
+// off start() and stop() reduce to a constant check the JIT folds away, and
+// nothing is registered or scheduled.
+//
+//   -Dstock.metrics.dumpSeconds  text dump interval (default 60, 0 = none)
+//   -Dstock.metrics.file         dump target (default metrics.log)
+//
+// Timers keep an HDR-style log-linear histogram of nanoseconds: 16 buckets
+// per power of two, so any percentile is reported within about 6%, in a fixed
+// 960-slot array however many samples are recorded.
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("stock.metrics");
+
+    private static final ConcurrentSkipListMap<String, Object> REGISTRY = new ConcurrentSkipListMap<>();
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public static final Timer BUY_STOCK = timer("buyStock");
+    public static final Timer SELL_STOCK = timer("sellStock");
+    public static final Timer LOGIN = timer("login");
+    public static final Timer LOAD_PORTFOLIO = timer("loadPortfolio");
+    public static final Timer EXPORT_CSV = timer("exportToCSV");
+    public static final Timer LOG_TRANSACTION = timer("logTransaction");
+    public static final Timer EXPOSURE_REFRESH = timer("exposureRefresh");
+
+    static {
+        long seconds = Long.getLong("stock.metrics.dumpSeconds", 60);
+        if (ENABLED && seconds > 0) {
+            String file = System.getProperty("stock.metrics.file", "metrics.log");
+            ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics-dump");
+                t.setDaemon(true);
+                return t;
+            });
+            dumper.scheduleAtFixedRate(() -> dumpTo(file), seconds, seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public interface TimerMXBean {
+        long getCount();
+        double getMeanMicros();
+        double getP50Micros();
+        double getP90Micros();
+        double getP99Micros();
+        double getMaxMicros();
+    }
+
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    public interface GaugeMXBean {
+        long getValue();
+    }
+
+    // Latency of one operation. Use as
+    //   long started = Metrics.BUY_STOCK.start();
+    //   ...
+    //   Metrics.BUY_STOCK.stop(started);
+    public static final class Timer implements TimerMXBean {
+        // Bucket index: values below 32 map to themselves; above, a value with
+        // its top bit at position b + 4 maps to b * 16 + (value >>> b).
+        private static final int SUB_BUCKETS = 16;
+        private static final int BUCKETS = 59 * SUB_BUCKETS + SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        public long start() {
+            return ENABLED ? System.nanoTime() : 0;
+        }
+
+        public void stop(long started) {
+            if (ENABLED) record(System.nanoTime() - started);
+        }
+
+        void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            counts.incrementAndGet(bucket(nanos));
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        static int bucket(long value) {
+            int b = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - 4);
+            return b * SUB_BUCKETS + (int) (value >>> b);
+        }
+
+        // Largest value that lands in bucket i.
+        static long highestValue(int i) {
+            int b = Math.max(0, i / SUB_BUCKETS - 1);
+            long sub = i - (long) b * SUB_BUCKETS;
+            return ((sub + 1) << b) - 1;
+        }
+
+        // Nanoseconds at or below which `fraction` of the samples fall.
+        public long percentileNanos(double fraction) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) total += counts.get(i);
+            if (total == 0) return 0;
+            long target = Math.max(1, (long) Math.ceil(total * fraction));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= target) return Math.min(highestValue(i), maxNanos.get());
+            }
+            return maxNanos.get();
+        }
+
+        public long getCount() { return count.sum(); }
+        public double getMeanMicros() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / 1000.0 / n;
+        }
+        public double getP50Micros() { return percentileNanos(0.50) / 1000.0; }
+        public double getP90Micros() { return percentileNanos(0.90) / 1000.0; }
+        public double getP99Micros() { return percentileNanos(0.99) / 1000.0; }
+        public double getMaxMicros() { return maxNanos.get() / 1000.0; }
+    }
+
+    public static final class Counter implements CounterMXBean {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            if (ENABLED) count.increment();
+        }
+
+        public void add(long n) {
+            if (ENABLED) count.add(n);
+        }
+
+        public long getCount() { return count.sum(); }
+    }
+
+    static final class Gauge implements GaugeMXBean {
+        private final LongSupplier value;
+
+        Gauge(LongSupplier value) {
+            this.value = value;
+        }
+
+        public long getValue() { return value.getAsLong(); }
+    }
+
+    public static Timer timer(String name) {
+        return (Timer) REGISTRY.computeIfAbsent(name, n -> register("Timer", n, new Timer()));
+    }
+
+    public static Counter counter(String name) {
+        return (Counter) REGISTRY.computeIfAbsent(name, n -> register("Counter", n, new Counter()));
+    }
+
+    // Sample `value` on every read; replaces an earlier gauge of the same name
+    // (e.g. the previous session's tree). A no-op when metrics are off.
+    public static void gauge(String name, LongSupplier value) {
+        if (!ENABLED) return;
+        REGISTRY.compute(name, (n, old) -> {
+            if (old != null) unregister("Gauge", n);
+            return register("Gauge", n, new Gauge(value));
+        });
+    }
+
+    private static <T> T register(String type, String name, T metric) {
+        if (!ENABLED) return metric;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metric, objectName(type, name));
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+        return metric;
+    }
+
+    private static void unregister(String type, String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(type, name));
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static ObjectName objectName(String type, String name) throws MalformedObjectNameException {
+        return new ObjectName("stockTrackerProject:type=" + type + ",name=" + ObjectName.quote(name));
+    }
+
+    // Every metric, one line each, in name order.
+    public static String dump() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Object> e : REGISTRY.entrySet()) {
+            Object metric = e.getValue();
+            sb.append(e.getKey());
+            if (metric instanceof Timer) {
+                Timer t = (Timer) metric;
+                sb.append(String.format(" count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus",
+                        t.getCount(), t.getMeanMicros(), t.getP50Micros(), t.getP90Micros(),
+                        t.getP99Micros(), t.getMaxMicros()));
+            } else if (metric instanceof Counter) {
+                sb.append(" count=").append(((Counter) metric).getCount());
+            } else {
+                sb.append(" value=").append(((Gauge) metric).getValue());
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void dumpTo(String file) {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file, true)))) {
+            writer.println("# " + DATE_FORMAT.format(LocalDateTime.now()));
+            writer.print(dump());
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
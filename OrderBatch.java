@@ -0,0 +1,233 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+// A file of buy/sell orders applied to a portfolio in one pass.
+//
+// The file is CSV with an optional header, one order per line:
+//   BUY,AAPL,10,150.0
+//   SELL,AAPL,4,162.5
+// Orders are stably sorted by stock name when read, so the portfolio tree can
+// apply the whole batch in a single merge against its in-order rows
+// (StockAVLTree.applyBatch, O(n + m)). Orders for the same stock keep their
+// file order. A SELL for more than is held at that point is rejected and the
+// rest of the batch still applies; accepted SELLs collect their realized
+// profit here for PerformanceHeap.insertAll.
+public class OrderBatch {
+    public static final byte BUY = TradeJournal.BUY;
+    public static final byte SELL = TradeJournal.SELL;
+
+    private byte[] types;
+    private String[] names;
+    private int[] quantities;
+    private double[] prices;
+    private int[] lines;
+    private int count;
+
+    // Set while the batch is applied.
+    private final boolean[] rejected;
+    private final int[] heldAtReject;
+    private int rejectedCount;
+    private String[] sellNames;
+    private int[] sellQuantities;
+    private double[] sellProfits;
+    private int sellCount;
+
+    private OrderBatch(byte[] types, String[] names, int[] quantities, double[] prices, int[] lines,
+                       int count) {
+        this.types = types;
+        this.names = names;
+        this.quantities = quantities;
+        this.prices = prices;
+        this.lines = lines;
+        this.count = count;
+        this.rejected = new boolean[count];
+        this.heldAtReject = new int[count];
+        this.sellNames = new String[count];
+        this.sellQuantities = new int[count];
+        this.sellProfits = new double[count];
+        sortByName();
+    }
+
+    // Read and sort an order file. A malformed line fails the whole batch
+    // before anything is applied.
+    public static OrderBatch read(String file) throws IOException {
+        Orders orders = new Orders();
+        new CsvReader().readAll(Paths.get(file), row -> {
+            int lineNumber = row.lineNumber();
+            if (row.isBlank()) return;
+            byte type = row.fieldEquals(0, "BUY", true) ? BUY : row.fieldEquals(0, "SELL", true) ? SELL : 0;
+            if (type == 0 && lineNumber == 1) return;  // header
+            if (type == 0 || row.fieldCount() < 4)
+                throw new IOException(file + ":" + lineNumber + ": expected BUY|SELL,stock,quantity,price");
+            int quantity;
+            double price;
+            try {
+                quantity = row.parseInt(2);
+                price = row.parseDouble(3);
+            } catch (NumberFormatException e) {
+                throw new IOException(file + ":" + lineNumber + ": bad quantity or price", e);
+            }
+            if (quantity <= 0)
+                throw new IOException(file + ":" + lineNumber + ": quantity must be positive");
+            orders.add(type, row.symbol(1).trim(), quantity, price, lineNumber);
+        });
+        return new OrderBatch(orders.types, orders.names, orders.quantities, orders.prices, orders.lines,
+                orders.count);
+    }
+
+    // Orders gathered by read, in file order.
+    private static class Orders {
+        byte[] types = new byte[64];
+        String[] names = new String[64];
+        int[] quantities = new int[64];
+        double[] prices = new double[64];
+        int[] lines = new int[64];
+        int count;
+
+        void add(byte type, String name, int quantity, double price, int line) {
+            if (count == types.length) {
+                types = Arrays.copyOf(types, count * 2);
+                names = Arrays.copyOf(names, count * 2);
+                quantities = Arrays.copyOf(quantities, count * 2);
+                prices = Arrays.copyOf(prices, count * 2);
+                lines = Arrays.copyOf(lines, count * 2);
+            }
+            types[count] = type;
+            names[count] = name;
+            quantities[count] = quantity;
+            prices[count] = price;
+            lines[count] = line;
+            count++;
+        }
+    }
+
+    // Stable, so each stock's orders stay in file order; skipped when the file
+    // is already sorted.
+    private void sortByName() {
+        boolean sorted = true;
+        for (int i = 1; i < count && sorted; i++)
+            sorted = names[i - 1].compareTo(names[i]) <= 0;
+        if (sorted) return;
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> names[a].compareTo(names[b]));
+        byte[] t = new byte[count];
+        String[] n = new String[count];
+        int[] q = new int[count];
+        double[] p = new double[count];
+        int[] l = new int[count];
+        for (int i = 0; i < count; i++) {
+            int from = order[i];
+            t[i] = types[from];
+            n[i] = names[from];
+            q[i] = quantities[from];
+            p[i] = prices[from];
+            l[i] = lines[from];
+        }
+        types = t;
+        names = n;
+        quantities = q;
+        prices = p;
+        lines = l;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public byte type(int i) {
+        return types[i];
+    }
+
+    public String stockName(int i) {
+        return names[i];
+    }
+
+    public int quantity(int i) {
+        return quantities[i];
+    }
+
+    public double price(int i) {
+        return prices[i];
+    }
+
+    // Line of the order file the i-th (sorted) order came from.
+    public int line(int i) {
+        return lines[i];
+    }
+
+    // Called by the tree before merging; clears the results of an earlier apply.
+    public void beginApply() {
+        Arrays.fill(rejected, false);
+        rejectedCount = 0;
+        sellCount = 0;
+    }
+
+    // Called by the tree while merging: a SELL for more than `held` shares.
+    public void reject(int i, int held) {
+        rejected[i] = true;
+        heldAtReject[i] = held;
+        rejectedCount++;
+    }
+
+    // Called by the tree while merging: an accepted SELL and its profit,
+    // (sell price - average cost) * quantity.
+    public void realize(int i, double profit) {
+        sellNames[sellCount] = names[i];
+        sellQuantities[sellCount] = quantities[i];
+        sellProfits[sellCount] = profit;
+        sellCount++;
+    }
+
+    public boolean isRejected(int i) {
+        return rejected[i];
+    }
+
+    public int heldAtReject(int i) {
+        return heldAtReject[i];
+    }
+
+    public int rejectedCount() {
+        return rejectedCount;
+    }
+
+    public int acceptedCount() {
+        return count - rejectedCount;
+    }
+
+    // Realized SELLs, in the shape PerformanceHeap.insertAll takes.
+    public String[] sellNames() {
+        return sellNames;
+    }
+
+    public int[] sellQuantities() {
+        return sellQuantities;
+    }
+
+    public double[] sellProfits() {
+        return sellProfits;
+    }
+
+    public int sellCount() {
+        return sellCount;
+    }
+
+    // One line per rejected SELL, in file order.
+    public String rejectionReport() {
+        Integer[] order = new Integer[rejectedCount];
+        int k = 0;
+        for (int i = 0; i < count; i++)
+            if (rejected[i]) order[k++] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(lines[a], lines[b]));
+        StringBuilder sb = new StringBuilder();
+        for (int i : order) {
+            sb.append("Line ").append(lines[i]).append(": SELL ").append(quantities[i])
+              .append(' ').append(names[i]).append(" rejected, only ")
+              .append(heldAtReject[i]).append(" held\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,56 @@
+package stockTrackerProject;
+
+import java.util.*;
+
+class PerformanceHeap {
+    // Primitive 4-ary max-heap; only filled when the full history is kept.
+    private final DaryTradeHeap heap = new DaryTradeHeap();
+    private final TopTrades topTrades;
+    private final boolean keepHistory;
+
+    // Keeps every trade (getSortedTrades) plus a top-10 leaderboard.
+    public PerformanceHeap() {
+        this(10, true);
+    }
+
+    // Top-K mode when keepHistory is false: only the K best and K worst trades
+    // are retained.
+    public PerformanceHeap(int topK, boolean keepHistory) {
+        this.topTrades = new TopTrades(topK);
+        this.keepHistory = keepHistory;
+    }
+
+    public TopTrades getTopTrades() {
+        return topTrades;
+    }
+
+    public int size() {
+        return keepHistory ? heap.size() : (int) topTrades.recorded();
+    }
+
+    // The ticker is interned once; both boards record its SymbolTable id.
+    public void insert(String stockName, int quantity, double profit) {
+        int symbolId = SymbolTable.global().id(stockName);
+        topTrades.record(symbolId, quantity, profit);
+        if (keepHistory) heap.insert(symbolId, quantity, profit);
+    }
+
+    // Bulk-load historical trades; the heap is built in O(n) rather than by
+    // n inserts.
+    public void insertAll(String[] stockNames, int[] quantities, double[] profits, int count) {
+        int[] symbolIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            symbolIds[i] = SymbolTable.global().id(stockNames[i]);
+            topTrades.record(symbolIds[i], quantities[i], profits[i]);
+        }
+        if (keepHistory) heap.buildHeap(symbolIds, quantities, profits, count);
+    }
+
+    public List<Trade> getSortedTrades() {
+        List<Trade> sorted = new ArrayList<>(heap.size());
+        for (int i = 0; i < heap.size(); i++)
+            sorted.add(new Trade(heap.symbolName(heap.symbolIdAt(i)), heap.quantityAt(i), heap.profitAt(i)));
+        sorted.sort((a, b) -> Double.compare(b.profit, a.profit));
+        return sorted;
+    }
+}
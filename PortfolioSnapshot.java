@@ -0,0 +1,220 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+// Binary checkpoint of a portfolio, "<user>_portfolio.snap", loaded at login
+// instead of parsing the CSV. TradeJournal writes one at every checkpoint
+// (temp file + atomic rename), and the one it replaces is kept as
+// "<user>_portfolio.snap.prev", the fallback if the newest fails its checks.
+// The CSV is only read before the first checkpoint (first login since the
+// upgrade) and otherwise stays an explicit import/export format.
+//
+//   header   int magic, short version, short record size, long LSN covered,
+//            int record count, int name bytes, 8 bytes reserved      32 bytes
+//   records  int name offset, int quantity, double average price    16 bytes
+//            each, sorted by stock name
+//   names    UTF-8 stock names back to back; record k's name runs from
+//            its offset to the next record's
+//   footer   int CRC32C of everything before it
+//
+// The whole file is read with bulk FileChannel reads and checked before a
+// single row is handed on, so a torn or corrupt snapshot loads nothing.
+public final class PortfolioSnapshot {
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 16;
+    private static final int FOOTER_SIZE = 4;
+    private static final int MAGIC = 0x50534E50;  // "PSNP"
+    private static final short VERSION = 1;
+    private static final String LSN_FIELD = "lsn=";
+
+    // Receives the rows of a portfolio, in stock name order.
+    public interface RowSink {
+        void row(String stockName, int quantity, double averagePrice);
+    }
+
+    private PortfolioSnapshot() {
+    }
+
+    // "<user>_portfolio.snap" for "<user>_portfolio.csv".
+    public static Path forPortfolio(String portfolioFile) {
+        String base = portfolioFile.endsWith(".csv")
+                ? portfolioFile.substring(0, portfolioFile.length() - 4) : portfolioFile;
+        return Paths.get(base + ".snap");
+    }
+
+    // "<user>_portfolio.snap.prev" for "<user>_portfolio.snap".
+    public static Path previous(Path snapshot) {
+        return snapshot.resolveSibling(snapshot.getFileName() + ".prev");
+    }
+
+    // Rows of a user's portfolio at login: the snapshot, else the previous
+    // generation, else the CSV if no snapshot was ever written. Returns the
+    // LSN the rows cover, for TradeJournal.recover, which still has the
+    // trades since the previous generation. Throws if snapshots exist but
+    // none is usable: the CSV is only as new as its last export.
+    public static long load(String portfolioFile, RowSink sink) throws IOException {
+        Path snapshot = forPortfolio(portfolioFile);
+        IOException failure = null;
+        for (Path file : new Path[] {snapshot, previous(snapshot)}) {
+            if (!Files.exists(file)) continue;
+            try {
+                return read(file, sink);
+            } catch (IOException e) {
+                System.err.println("Ignoring portfolio snapshot " + file + ": " + e.getMessage());
+                failure = e;
+            }
+        }
+        if (failure != null) throw new IOException("No usable portfolio snapshot for " + portfolioFile, failure);
+        Path csv = Paths.get(portfolioFile);
+        if (!Files.exists(csv)) return 0;
+        return readCSV(csv, sink);
+    }
+
+    // Every row of a snapshot; returns the LSN it covers. Throws without
+    // calling the sink if the file is not a complete, intact snapshot.
+    public static long read(Path file, RowSink sink) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + FOOTER_SIZE || size > Integer.MAX_VALUE)
+                throw new IOException("Not a portfolio snapshot: " + file);
+            data = ByteBuffer.allocate((int) size);
+            while (data.hasRemaining()) {
+                if (channel.read(data) < 0) throw new IOException("Truncated portfolio snapshot: " + file);
+            }
+        }
+        if (data.getInt(0) != MAGIC || data.getShort(4) != VERSION || data.getShort(6) != RECORD_SIZE)
+            throw new IOException("Not a portfolio snapshot: " + file);
+        long lsn = data.getLong(8);
+        int count = data.getInt(16);
+        int nameBytes = data.getInt(20);
+        int end = data.capacity() - FOOTER_SIZE;
+        if (count < 0 || nameBytes < 0 || HEADER_SIZE + (long) count * RECORD_SIZE + nameBytes != end)
+            throw new IOException("Truncated portfolio snapshot: " + file);
+        CRC32C crc = new CRC32C();
+        crc.update(data.array(), 0, end);
+        if ((int) crc.getValue() != data.getInt(end))
+            throw new IOException("Checksum mismatch in portfolio snapshot: " + file);
+
+        int names = HEADER_SIZE + count * RECORD_SIZE;
+        int previous = 0;
+        for (int at = HEADER_SIZE; at < names; at += RECORD_SIZE) {
+            int offset = data.getInt(at);
+            if (offset < previous || offset > nameBytes)
+                throw new IOException("Bad name offset in portfolio snapshot: " + file);
+            previous = offset;
+        }
+        byte[] bytes = data.array();
+        for (int at = HEADER_SIZE; at < names; at += RECORD_SIZE) {
+            int from = data.getInt(at);
+            int to = (at + RECORD_SIZE < names) ? data.getInt(at + RECORD_SIZE) : nameBytes;
+            sink.row(new String(bytes, names + from, to - from, StandardCharsets.UTF_8),
+                    data.getInt(at + 4), data.getDouble(at + 8));
+        }
+        return lsn;
+    }
+
+    // Write the rows as a snapshot covering `lsn`: to a temp file, forced to
+    // disk, then renamed over `file`, so readers see the old or the new one.
+    // The snapshot it replaces is renamed to previous(file) first.
+    public static void write(Path file, long lsn, TradeJournal.SnapshotWriter rows) throws IOException {
+        Encoder encoder = new Encoder();
+        rows.writeRows(encoder);
+        ByteBuffer data = encoder.finish(lsn);
+        Path target = file.toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) channel.write(data);
+            channel.force(true);
+        }
+        if (Files.exists(target)) replace(target, previous(target));
+        replace(temp, target);
+    }
+
+    // Rename `from` over `to`, atomically where the file system can.
+    static void replace(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Rows of a portfolio CSV (header, then stock,quantity,average price).
+    // Returns the LSN that checkpoints written before snapshots existed put in
+    // the header ("Stock Name,Quantity,Average Price,lsn=42"), or 0. A row
+    // whose quantity or price does not parse fails the read with its line.
+    public static long readCSV(Path file, RowSink sink) throws IOException {
+        long[] lsn = {0};
+        new CsvReader().readAll(file, row -> {
+            if (row.lineNumber() == 1) {
+                if (row.fieldCount() > 3) lsn[0] = headerLsn(row.string(3));
+            } else if (row.fieldCount() >= 3) {
+                int quantity;
+                double price;
+                try {
+                    quantity = row.parseInt(1);
+                    price = row.parseDouble(2);
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + ":" + row.lineNumber() + ": bad quantity or average price", e);
+                }
+                sink.row(row.string(0), quantity, price);
+            }
+        });
+        return lsn[0];
+    }
+
+    private static long headerLsn(String field) {
+        if (!field.startsWith(LSN_FIELD)) return 0;
+        try {
+            return Long.parseLong(field.substring(LSN_FIELD.length()).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Collects records and names as the rows stream in.
+    private static final class Encoder implements RowSink {
+        private ByteBuffer records = ByteBuffer.allocate(64 * RECORD_SIZE);
+        private byte[] names = new byte[1024];
+        private int nameBytes;
+        private int count;
+
+        public void row(String stockName, int quantity, double averagePrice) {
+            byte[] name = stockName.getBytes(StandardCharsets.UTF_8);
+            if (!records.hasRemaining()) {
+                ByteBuffer wider = ByteBuffer.allocate(records.capacity() * 2);
+                records.flip();
+                records = wider.put(records);
+            }
+            if (nameBytes + name.length > names.length)
+                names = Arrays.copyOf(names, Math.max(names.length * 2, nameBytes + name.length));
+            records.putInt(nameBytes).putInt(quantity).putDouble(averagePrice);
+            System.arraycopy(name, 0, names, nameBytes, name.length);
+            nameBytes += name.length;
+            count++;
+        }
+
+        ByteBuffer finish(long lsn) throws IOException {
+            long size = HEADER_SIZE + (long) count * RECORD_SIZE + nameBytes + FOOTER_SIZE;
+            if (size > Integer.MAX_VALUE) throw new IOException("Portfolio too large for a snapshot");
+            ByteBuffer data = ByteBuffer.allocate((int) size);
+            data.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE)
+                .putLong(lsn).putInt(count).putInt(nameBytes).putLong(0);
+            records.flip();
+            data.put(records).put(names, 0, nameBytes);
+            CRC32C crc = new CRC32C();
+            crc.update(data.array(), 0, data.position());
+            data.putInt((int) crc.getValue());
+            data.flip();
+            return data;
+        }
+    }
+}
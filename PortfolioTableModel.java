@@ -0,0 +1,153 @@
+package stockTrackerProject;
+
+import java.util.*;
+import javax.swing.table.AbstractTableModel;
+
+// Table model over the portfolio tree. It keeps its own copy of the rows, in
+// the tree's name order, and on refresh() brings over only the symbols marked
+// changed since the last one: each is looked up in the tree and its row
+// updated, inserted or deleted with a row-level event, so a view refresh after
+// one trade costs O(log n) and JTable repaints one row. When more than an
+// eighth of the rows changed at once (an order batch), or the tree was
+// replaced, the rows are reloaded in one O(n) pass instead.
+class PortfolioTableModel extends AbstractTableModel {
+    static final int STOCK = 0, QUANTITY = 1, PRICE = 2, COST = 3;
+    private static final String[] COLUMNS = {"Stock", "Quantity", "Avg Price", "Cost Basis"};
+    private static final int MIN_RELOAD = 64;
+
+    private final StockAVLTree tree;
+    private String[] names = new String[16];
+    private long[] keys = new long[16];  // SymbolTable.sortKey of each name
+    private int[] quantities = new int[16];
+    private double[] prices = new double[16];
+    private int count;
+    private final Set<String> changed = new HashSet<>();
+    private boolean reload = true;
+
+    PortfolioTableModel(StockAVLTree tree) {
+        this.tree = tree;
+    }
+
+    // A trade touched this symbol.
+    void changed(String stockName) {
+        if (reload) return;
+        changed.add(stockName);
+        if (changed.size() > Math.max(MIN_RELOAD, count / 8)) reloadAll();
+    }
+
+    // The tree was replaced (an import): reload every row on the next refresh.
+    void reloadAll() {
+        reload = true;
+        changed.clear();
+    }
+
+    // Bring the rows up to date with the tree.
+    void refresh() {
+        if (reload) {
+            reload = false;
+            changed.clear();
+            count = 0;
+            tree.writeRows(this::append);
+            fireTableDataChanged();
+            return;
+        }
+        for (String stockName : changed) {
+            StockNode node = tree.search(stockName);
+            int row = find(stockName);
+            if (row >= 0 && node != null) {
+                quantities[row] = node.quantity;
+                prices[row] = node.averagePrice;
+                fireTableRowsUpdated(row, row);
+            } else if (row >= 0) {
+                remove(row);
+                fireTableRowsDeleted(row, row);
+            } else if (node != null) {
+                row = -row - 1;
+                insert(row, node.stockName, node.quantity, node.averagePrice);
+                fireTableRowsInserted(row, row);
+            }
+        }
+        changed.clear();
+    }
+
+    private void append(String stockName, int quantity, double averagePrice) {
+        insert(count, stockName, quantity, averagePrice);
+    }
+
+    private void insert(int row, String stockName, int quantity, double averagePrice) {
+        if (count == names.length) {
+            names = Arrays.copyOf(names, count * 2);
+            keys = Arrays.copyOf(keys, count * 2);
+            quantities = Arrays.copyOf(quantities, count * 2);
+            prices = Arrays.copyOf(prices, count * 2);
+        }
+        int tail = count - row;
+        System.arraycopy(names, row, names, row + 1, tail);
+        System.arraycopy(keys, row, keys, row + 1, tail);
+        System.arraycopy(quantities, row, quantities, row + 1, tail);
+        System.arraycopy(prices, row, prices, row + 1, tail);
+        names[row] = stockName;
+        keys[row] = SymbolTable.sortKey(stockName);
+        quantities[row] = quantity;
+        prices[row] = averagePrice;
+        count++;
+    }
+
+    private void remove(int row) {
+        int tail = count - row - 1;
+        System.arraycopy(names, row + 1, names, row, tail);
+        System.arraycopy(keys, row + 1, keys, row, tail);
+        System.arraycopy(quantities, row + 1, quantities, row, tail);
+        System.arraycopy(prices, row + 1, prices, row, tail);
+        names[--count] = null;
+    }
+
+    // Row of a symbol, or -(insertion point) - 1, in the tree's order (sort
+    // key, then name).
+    private int find(String stockName) {
+        long key = SymbolTable.sortKey(stockName);
+        int low = 0, high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = key != keys[mid] ? (key < keys[mid] ? -1 : 1) : stockName.compareTo(names[mid]);
+            if (cmp == 0) return mid;
+            if (cmp < 0) high = mid - 1;
+            else low = mid + 1;
+        }
+        return -(low + 1);
+    }
+
+    @Override
+    public int getRowCount() {
+        return count;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case STOCK: return String.class;
+            case QUANTITY: return Integer.class;
+            default: return Double.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case STOCK: return names[row];
+            case QUANTITY: return quantities[row];
+            case PRICE: return prices[row];
+            default: return prices[row] * quantities[row];
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package stockTrackerProject;
+
+import java.util.*;
+import java.io.*;
+import javax.swing.JOptionPane;
+
+class StockAVLTree {
+    StockNode root;
+
+    int height(StockNode node) {
+        return (node == null) ? 0 : node.height;
+    }
+
+    int getBalance(StockNode node) {
+        return (node == null) ? 0 : height(node.left) - height(node.right);
+    }
+
+    int size(StockNode node) {
+        return (node == null) ? 0 : node.size;
+    }
+
+    long totalQuantity(StockNode node) {
+        return (node == null) ? 0 : node.totalQuantity;
+    }
+
+    double totalCost(StockNode node) {
+        return (node == null) ? 0 : node.totalCost;
+    }
+
+    // Recompute height and subtree aggregates from the children.
+    void update(StockNode node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.size = size(node.left) + size(node.right) + 1;
+        node.totalQuantity = totalQuantity(node.left) + totalQuantity(node.right) + node.quantity;
+        node.totalCost = totalCost(node.left) + totalCost(node.right) + node.averagePrice * node.quantity;
+    }
+
+    StockNode rightRotate(StockNode y) {
+        StockNode x = y.left;
+        StockNode T2 = x.right;
+        x.right = y;
+        y.left = T2;
+        update(y);
+        update(x);
+        return x;
+    }
+
+    StockNode leftRotate(StockNode x) {
+        StockNode y = x.right;
+        StockNode T2 = y.left;
+        y.left = x;
+        x.right = T2;
+        update(x);
+        update(y);
+        return y;
+    }
+
+    // Order of a name (with its sort key) against a node: the packed prefixes
+    // settle almost every compare, the names only break a tie.
+    static int compare(String stockName, long sortKey, StockNode node) {
+        if (sortKey != node.sortKey) return (sortKey < node.sortKey) ? -1 : 1;
+        return stockName.compareTo(node.stockName);
+    }
+
+    StockNode insert(StockNode node, String stockName, int quantity, double price) {
+        return insert(node, stockName, SymbolTable.sortKey(stockName), quantity, price);
+    }
+
+    StockNode insert(StockNode node, String stockName, long key, int quantity, double price) {
+        if (node == null) return new StockNode(stockName, quantity, price);
+        int cmp = compare(stockName, key, node);
+        if (cmp < 0) node.left = insert(node.left, stockName, key, quantity, price);
+        else if (cmp > 0) node.right = insert(node.right, stockName, key, quantity, price);
+        else {
+            double totalCost = node.averagePrice * node.quantity + price * quantity;
+            node.quantity += quantity;
+            node.averagePrice = totalCost / node.quantity;
+            update(node);
+            return node;
+        }
+        update(node);
+        int balance = getBalance(node);
+        if (balance > 1 && compare(stockName, key, node.left) < 0) return rightRotate(node);
+        if (balance < -1 && compare(stockName, key, node.right) > 0) return leftRotate(node);
+        if (balance > 1 && compare(stockName, key, node.left) > 0) {
+            node.left = leftRotate(node.left);
+            return rightRotate(node);
+        }
+        if (balance < -1 && compare(stockName, key, node.right) < 0) {
+            node.right = rightRotate(node.right);
+            return leftRotate(node);
+        }
+        return node;
+    }
+
+    StockNode delete(StockNode node, String stockName, int quantity) {
+        return delete(node, stockName, SymbolTable.sortKey(stockName), quantity);
+    }
+
+    StockNode delete(StockNode node, String stockName, long key, int quantity) {
+        if (node == null) return null;
+        int cmp = compare(stockName, key, node);
+        if (cmp < 0) node.left = delete(node.left, stockName, key, quantity);
+        else if (cmp > 0) node.right = delete(node.right, stockName, key, quantity);
+        else {
+            if (node.quantity > quantity) {
+                node.quantity -= quantity;
+                update(node);
+                return node;
+            } else if (node.quantity == quantity) {
+                if (node.left == null || node.right == null) {
+                    StockNode temp = (node.left != null) ? node.left : node.right;
+                    node = (temp == null) ? null : temp;
+                } else {
+                    StockNode temp = minValueNode(node.right);
+                    node.stockName = temp.stockName;
+                    node.sortKey = temp.sortKey;
+                    node.quantity = temp.quantity;
+                    node.averagePrice = temp.averagePrice;
+                    node.right = delete(node.right, temp.stockName, temp.sortKey, temp.quantity);
+                }
+            } else {
+                JOptionPane.showMessageDialog(null, "Not enough stock to sell.");
+                return node;
+            }
+        }
+        if (node == null) return null;
+        update(node);
+        int balance = getBalance(node);
+        if (balance > 1 && getBalance(node.left) >= 0) return rightRotate(node);
+        if (balance > 1 && getBalance(node.left) < 0) {
+            node.left = leftRotate(node.left);
+            return rightRotate(node);
+        }
+        if (balance < -1 && getBalance(node.right) <= 0) return leftRotate(node);
+        if (balance < -1 && getBalance(node.right) > 0) {
+            node.right = rightRotate(node.right);
+            return leftRotate(node);
+        }
+        return node;
+    }
+
+    StockNode minValueNode(StockNode node) {
+        StockNode current = node;
+        while (current.left != null) current = current.left;
+        return current;
+    }
+
+    StockNode search(StockNode node, String stockName) {
+        long key = SymbolTable.sortKey(stockName);
+        while (node != null) {
+            int cmp = compare(stockName, key, node);
+            if (cmp == 0) return node;
+            node = (cmp < 0) ? node.left : node.right;
+        }
+        return null;
+    }
+
+    void inOrder(StockNode node, StringBuilder sb) {
+        if (node != null) {
+            inOrder(node.left, sb);
+            sb.append("Stock: ").append(node.stockName)
+              .append(" | Quantity: ").append(node.quantity)
+              .append(" | Avg Price: ").append(node.averagePrice).append("\n");
+            inOrder(node.right, sb);
+        }
+    }
+
+    // Rows gathered by a loader for bulkLoad.
+    static class Rows {
+        String[] names = new String[16];
+        int[] quantities = new int[16];
+        double[] prices = new double[16];
+        int count;
+
+        void add(String name, int quantity, double price) {
+            if (count == names.length) {
+                names = Arrays.copyOf(names, count * 2);
+                quantities = Arrays.copyOf(quantities, count * 2);
+                prices = Arrays.copyOf(prices, count * 2);
+            }
+            names[count] = name;
+            quantities[count] = quantity;
+            prices[count] = price;
+            count++;
+        }
+    }
+
+    // Replace the tree with `rows` in O(n): input already sorted by stock name
+    // (the order exportToCSV writes) becomes a perfectly balanced tree with no
+    // compares against the tree and no rotations; unsorted input is sorted
+    // first. Repeated names are merged like repeated buys. Reuses the arrays.
+    public void bulkLoad(Rows rows) {
+        int n = rows.count;
+        String[] names = rows.names;
+        int[] quantities = rows.quantities;
+        double[] prices = rows.prices;
+        boolean sorted = true;
+        for (int i = 1; i < n && sorted; i++)
+            sorted = names[i - 1].compareTo(names[i]) <= 0;
+        if (!sorted) {
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> rows.names[a].compareTo(rows.names[b]));
+            names = new String[n];
+            quantities = new int[n];
+            prices = new double[n];
+            for (int i = 0; i < n; i++) {
+                names[i] = rows.names[order[i]];
+                quantities[i] = rows.quantities[order[i]];
+                prices[i] = rows.prices[order[i]];
+            }
+        }
+
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (m > 0 && names[m - 1].equals(names[i])) {
+                double totalCost = prices[m - 1] * quantities[m - 1] + prices[i] * quantities[i];
+                quantities[m - 1] += quantities[i];
+                prices[m - 1] = totalCost / quantities[m - 1];
+            } else {
+                names[m] = names[i];
+                quantities[m] = quantities[i];
+                prices[m] = prices[i];
+                m++;
+            }
+        }
+        root = build(names, quantities, prices, 0, m - 1);
+    }
+
+    // Balanced subtree over the sorted slice [lo, hi].
+    StockNode build(String[] names, int[] quantities, double[] prices, int lo, int hi) {
+        if (lo > hi) return null;
+        int mid = (lo + hi) >>> 1;
+        StockNode node = new StockNode(names[mid], quantities[mid], prices[mid]);
+        node.left = build(names, quantities, prices, lo, mid - 1);
+        node.right = build(names, quantities, prices, mid + 1, hi);
+        update(node);
+        return node;
+    }
+
+    // Apply a batch of orders (sorted by name) in one merge against the tree's
+    // in-order rows and rebuild it balanced: O(n + m) rather than m descents.
+    // Each stock's orders run in file order with the same arithmetic as single
+    // trades; a SELL for more than is held is rejected in the batch. Returns
+    // the new root and leaves this tree untouched, so callers can journal the
+    // accepted orders before installing it.
+    public StockNode mergeBatch(OrderBatch batch) {
+        batch.beginApply();
+        int n = size(root), m = batch.size();
+        String[] names = new String[n + m];
+        int[] quantities = new int[n + m];
+        double[] prices = new double[n + m];
+        // Tree rows sit at [m, n + m); merged rows are written from 0 and
+        // never overtake the unread tree rows.
+        flatten(root, names, quantities, prices, m);
+        int i = m, k = 0, j = 0;
+        while (i < n + m || j < m) {
+            if (j == m || (i < n + m && names[i].compareTo(batch.stockName(j)) < 0)) {
+                names[k] = names[i];
+                quantities[k] = quantities[i];
+                prices[k++] = prices[i++];
+                continue;
+            }
+            String stock = batch.stockName(j);
+            int held = 0;
+            double averagePrice = 0;
+            if (i < n + m && names[i].equals(stock)) {
+                held = quantities[i];
+                averagePrice = prices[i++];
+            }
+            for (; j < m && batch.stockName(j).equals(stock); j++) {
+                int qty = batch.quantity(j);
+                double price = batch.price(j);
+                if (batch.type(j) == OrderBatch.BUY) {
+                    double totalCost = averagePrice * held + price * qty;
+                    held += qty;
+                    averagePrice = totalCost / held;
+                } else if (qty > held) {
+                    batch.reject(j, held);
+                } else {
+                    batch.realize(j, (price - averagePrice) * qty);
+                    held -= qty;
+                }
+            }
+            if (held > 0) {
+                names[k] = stock;
+                quantities[k] = held;
+                prices[k++] = averagePrice;
+            }
+        }
+        return build(names, quantities, prices, 0, k - 1);
+    }
+
+    public void applyBatch(OrderBatch batch) {
+        root = mergeBatch(batch);
+    }
+
+    // In-order rows of the subtree into the arrays from index `at`; returns
+    // the next free index.
+    private int flatten(StockNode node, String[] names, int[] quantities, double[] prices, int at) {
+        if (node == null) return at;
+        at = flatten(node.left, names, quantities, prices, at);
+        names[at] = node.stockName;
+        quantities[at] = node.quantity;
+        prices[at++] = node.averagePrice;
+        return flatten(node.right, names, quantities, prices, at);
+    }
+
+    // Load a portfolio CSV (header, then stock,quantity,average price rows).
+    // On a read or parse error the tree is left as it was.
+    public void loadCSV(File file) throws IOException {
+        Rows rows = new Rows();
+        PortfolioSnapshot.readCSV(file.toPath(), rows::add);
+        // Rows come back in exportToCSV's sorted order: build in O(n).
+        bulkLoad(rows);
+    }
+
+    public void insert(String stockName, int quantity, double price) {
+        root = insert(root, stockName, quantity, price);
+    }
+
+    public void delete(String stockName, int quantity) {
+        root = delete(root, stockName, quantity);
+    }
+
+    public StockNode search(String stockName) {
+        return search(root, stockName);
+    }
+
+    // Positions, shares and cost basis of a set of holdings.
+    static class Valuation {
+        int positions;
+        long quantity;
+        double cost;
+
+        void addPosition(StockNode node) {
+            positions++;
+            quantity += node.quantity;
+            cost += node.averagePrice * node.quantity;
+        }
+
+        void addSubtree(StockNode node) {
+            if (node == null) return;
+            positions += node.size;
+            quantity += node.totalQuantity;
+            cost += node.totalCost;
+        }
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public long totalQuantity() {
+        return totalQuantity(root);
+    }
+
+    public double totalCost() {
+        return totalCost(root);
+    }
+
+    // Holdings named from `from` to `to`, both inclusive, in O(log n): descend
+    // to the node where the two bounds split, then take whole subtrees along
+    // each boundary path.
+    public Valuation valueRange(String from, String to) {
+        Valuation v = new Valuation();
+        long fromKey = SymbolTable.sortKey(from), toKey = SymbolTable.sortKey(to);
+        StockNode node = root;
+        while (node != null) {
+            if (compare(from, fromKey, node) > 0) node = node.right;
+            else if (compare(to, toKey, node) < 0) node = node.left;
+            else break;
+        }
+        if (node == null) return v;
+        v.addPosition(node);
+        for (StockNode n = node.left; n != null; ) {
+            if (compare(from, fromKey, n) > 0) n = n.right;
+            else {
+                v.addPosition(n);
+                v.addSubtree(n.right);
+                n = n.left;
+            }
+        }
+        for (StockNode n = node.right; n != null; ) {
+            if (compare(to, toKey, n) < 0) n = n.left;
+            else {
+                v.addPosition(n);
+                v.addSubtree(n.left);
+                n = n.right;
+            }
+        }
+        return v;
+    }
+
+    // Number of holdings whose name sorts before stockName (held or not).
+    public int rank(String stockName) {
+        int rank = 0;
+        long key = SymbolTable.sortKey(stockName);
+        StockNode node = root;
+        while (node != null) {
+            int cmp = compare(stockName, key, node);
+            if (cmp <= 0) node = node.left;
+            else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    // The k-th holding (0-based) in name order, or null when k is out of range.
+    public StockNode select(int k) {
+        if (k < 0 || k >= size(root)) return null;
+        StockNode node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (k < leftSize) node = node.left;
+            else if (k == leftSize) return node;
+            else {
+                k -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    // Explicit-stack cursor over holdings in name order. next() hands back the
+    // tree's own nodes, so a scan allocates nothing per element; one cursor
+    // can be re-seeked any number of times. Any insert or delete invalidates
+    // a scan in progress.
+    class Cursor {
+        private StockNode[] stack = new StockNode[32];
+        private int depth;
+        private String to;      // inclusive upper bound, or null
+        private long toKey;
+        private String prefix;  // every name must start with this, or null
+
+        // Start at the first holding whose name is >= key; no upper bound.
+        public Cursor seek(String key) {
+            depth = 0;
+            to = null;
+            prefix = null;
+            long sortKey = SymbolTable.sortKey(key);
+            StockNode node = root;
+            while (node != null) {
+                if (compare(key, sortKey, node) <= 0) {
+                    push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            return this;
+        }
+
+        // Holdings named from `from` to `to`, both inclusive.
+        public Cursor range(String from, String to) {
+            seek(from);
+            this.to = to;
+            this.toKey = SymbolTable.sortKey(to);
+            return this;
+        }
+
+        // Holdings whose name starts with `prefix`.
+        public Cursor prefix(String prefix) {
+            seek(prefix);
+            this.prefix = prefix;
+            return this;
+        }
+
+        // The next holding in name order, or null once the scan is done.
+        public StockNode next() {
+            if (depth == 0) return null;
+            StockNode node = stack[--depth];
+            if ((to != null && compare(to, toKey, node) < 0)
+                    || (prefix != null && !node.stockName.startsWith(prefix))) {
+                depth = 0;
+                return null;
+            }
+            for (StockNode n = node.right; n != null; n = n.left) push(n);
+            return node;
+        }
+
+        private void push(StockNode node) {
+            if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+            stack[depth++] = node;
+        }
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public String getPortfolioString() {
+        StringBuilder sb = new StringBuilder();
+        inOrder(root, sb);
+        sb.append("Positions: ").append(size())
+          .append(" | Shares: ").append(totalQuantity())
+          .append(" | Cost Basis: ").append(totalCost()).append("\n");
+        return sb.toString();
+    }
+
+    public void exportToCSV(String filename) {
+        long started = Metrics.EXPORT_CSV.start();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            writer.println("Stock Name,Quantity,Average Price");
+            exportToCSV(root, writer);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        Metrics.EXPORT_CSV.stop(started);
+    }
+
+    // Portfolio rows in sorted order, for checkpoints.
+    public void writeRows(PortfolioSnapshot.RowSink sink) {
+        writeRows(root, sink);
+    }
+
+    private void writeRows(StockNode node, PortfolioSnapshot.RowSink sink) {
+        if (node != null) {
+            writeRows(node.left, sink);
+            sink.row(node.stockName, node.quantity, node.averagePrice);
+            writeRows(node.right, sink);
+        }
+    }
+
+    private void exportToCSV(StockNode node, PrintWriter writer) {
+        if (node != null) {
+            exportToCSV(node.left, writer);
+            writer.println(node.stockName + "," + node.quantity + "," + node.averagePrice);
+            exportToCSV(node.right, writer);
+        }
+    }
+}
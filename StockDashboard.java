@@ -3,244 +3,44 @@ package stockTrackerProject;
 import java.util.*;
 import java.util.List;
 import java.io.*;
-import java.text.SimpleDateFormat;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.*;
 
-class StockNode {
-    String stockName;
-    int quantity;
-    double averagePrice;
-    int height;
-    StockNode left, right;
-
-    StockNode(String stockName, int quantity, double averagePrice) {
-        this.stockName = stockName;
-        this.quantity = quantity;
-        this.averagePrice = averagePrice;
-        this.height = 1;
-    }
-}
-
-class StockAVLTree {
-    StockNode root;
-
-    int height(StockNode node) {
-        return (node == null) ? 0 : node.height;
-    }
-
-    int getBalance(StockNode node) {
-        return (node == null) ? 0 : height(node.left) - height(node.right);
-    }
-
-    StockNode rightRotate(StockNode y) {
-        StockNode x = y.left;
-        StockNode T2 = x.right;
-        x.right = y;
-        y.left = T2;
-        y.height = Math.max(height(y.left), height(y.right)) + 1;
-        x.height = Math.max(height(x.left), height(x.right)) + 1;
-        return x;
-    }
-
-    StockNode leftRotate(StockNode x) {
-        StockNode y = x.right;
-        StockNode T2 = y.left;
-        y.left = x;
-        x.right = T2;
-        x.height = Math.max(height(x.left), height(x.right)) + 1;
-        y.height = Math.max(height(y.left), height(y.right)) + 1;
-        return y;
-    }
-
-    StockNode insert(StockNode node, String stockName, int quantity, double price) {
-        if (node == null) return new StockNode(stockName, quantity, price);
-        int cmp = stockName.compareTo(node.stockName);
-        if (cmp < 0) node.left = insert(node.left, stockName, quantity, price);
-        else if (cmp > 0) node.right = insert(node.right, stockName, quantity, price);
-        else {
-            double totalCost = node.averagePrice * odne.quantity + price * quantity;
-            node.quantity += quantity;
-            node.averagePrice = totalCost / node.quantity;
-            return node;
-        }
-        node.height = 1 + Math.max(height(node.left), height(node.right));
-        int balance = getBalance(node);
-        if (balance > 1 && stockName.compareTo(node.left.stockName) < 0) return rightRotate(node);
-        if (balance < -1 && stockName.compareTo(node.right.stockName) > 0) return leftRotate(node);
-        if (balance > 1 && stockName.compareTo(node.left.stockName) > 0) {
-            node.left = leftRotate(node.left);
-            return rightRotate(node);
-        }
-        if (balance < -1 && stockName.compareTo(node.right.stockName) < 0) {
-            node.right = rightRotate(node.right);
-            return leftRotate(node);
-        }
-        return node;
-    }
-
-    StockNode delete(StockNode node, String stockName, int quantity) {
-        if (node == null) return null;
-        int cmp = stockName.compareTo(node.stockName);
-        if (cmp < 0) node.left = delete(node.left, stockName, quantity);
-        else if (cmp > 0) node.right = delete(node.right, stockName, quantity);
-        else {
-            if (node.quantity > quantity) {
-                node.quantity -= quantity;
-                return node;
-            } else if (node.quantity == quantity) {
-                if (node.left == null || node.right == null) {
-                    StockNode temp = (node.left != null) ? node.left : node.right;
-                    node = (temp == null) ? null : temp;
-                } else {
-                    StockNode temp = minValueNode(node.right);
-                    node.stockName = temp.stockName;
-                    node.quantity = temp.quantity;
-                    node.averagePrice = temp.averagePrice;
-                    node.right = delete(node.right, temp.stockName, temp.quantity);
-                }
-            } else {
-                JOptionPane.showMessageDialog(null, "Not enough stock to sell.");
-                return node;
-            }
-        }
-        if (node == null) return null;
-        node.height = Math.max(height(node.left), height(node.right)) + 1;
-        int balance = getBalance(node);
-        if (balance > 1 && getBalance(node.left) >= 0) return rightRotate(node);
-        if (balance > 1 && getBalance(node.left) < 0) {
-            node.left = leftRotate(node.left);
-            return rightRotate(node);
-        }
-        if (balance < -1 && getBalance(node.right) <= 0) return leftRotate(node);
-        if (balance < -1 && getBalance(node.right) > 0) {
-            node.right = rightRotate(node.right);
-            return leftRotate(node);
-        }
-        return node;
-    }
-
-    StockNode minValueNode(StockNode node) {
-        StockNode current = node;
-        while (current.left != null) current = current.left;
-        return current;
-    }
-
-    StockNode search(StockNode node, String stockName) {
-        if (node == null || node.stockName.equals(stockName)) return node;
-        int cmp = stockName.compareTo(node.stockName);
-        return (cmp < 0) ? search(node.left, stockName) : search(node.right, stockName);
-    }
-
-    void inOrder(StockNode node, StringBuilder sb) {
-        if (node != null) {
-            inOrder(node.left, sb);
-            sb.append("Stock: ").append(node.stockName)
-              .append(" | Quantity: ").append(node.quantity)
-              .append(" | Avg Price: ").append(node.averagePrice).append("\n");
-            inOrder(node.right, sb);
-        }
-    }
-
-    public void insert(String stockName, int quantity, double price) {
-        root = insert(root, stockName, quantity, price);
-    }
-
-    public void delete(String stockName, int quantity) {
-        root = delete(root, stockName, quantity);
-    }
-
-    public StockNode search(String stockName) {
-        return search(root, stockName);
-    }
-
-    public String getPortfolioString() {
-        StringBuilder sb = new StringBuilder();
-        inOrder(root, sb);
-        return sb.toString();
-    }
-
-    public void exportToCSV(String filename) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
-            writer.println("Stock Name,Quantity,Average Price");
-            exportToCSV(root, writer);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private void exportToCSV(StockNode node, PrintWriter writer) {
-        if (node != null) {
-            exportToCSV(node.left, writer);
-            writer.println(node.stockName + "," + node.quantity + "," + node.averagePrice);
-            exportToCSV(node.right, writer);
-        }
-    }
-}
-
-class Trade {
-    String stockName;
-    int quantity;
-    double profit;
-
-    Trade(String stockName, int quantity, double profit) {
-        this.stockName = stockName;
-        this.quantity = quantity;
-        this.profit = profit;
-    }
-
-    public String getStockName() {
-        return stockName;
-    }
-
-    public int getQuantity() {
-        return quantity;
-    }
-
-    public double getProfit() {
-        return profit;
-    }
-}
-
-class PerformanceHeap {
-    private final List<Trade> heap = new ArrayList<>();
-
-    public void insert(String stockName, int quantity, double profit) {
-        Trade trade = new Trade(stockName, quantity, profit);
-        heap.add(trade);
-        int i = heap.size() - 1;
-        while (i > 0 && heap.get(parent(i)).profit < heap.get(i).profit) {
-            Collections.swap(heap, i, parent(i));
-            i = parent(i);
-        }
-    }
-
-    public List<Trade> getSortedTrades() {
-        List<Trade> sorted = new ArrayList<>(heap);
-        sorted.sort((a, b) -> Double.compare(b.profit, a.profit));
-        return sorted;
-    }
-
-    private int parent(int i) {
-        return (i - 1) / 2;
-    }
-}
-
 public class StockDashboard extends JFrame {
     private final StockAVLTree portfolioTree = new StockAVLTree();
-    private final PerformanceHeap performanceHeap = new PerformanceHeap();
+    private final PerformanceHeap performanceHeap =
+            new PerformanceHeap(Integer.getInteger("stock.topTrades", 10), false);
+    private final StringBuilder topTradesText = new StringBuilder();
+    // Tax lots under -Dstock.costBasis, else null (average cost).
+    private final TaxLots lots = TaxLots.configured();
+    private final PortfolioTableModel portfolioModel = new PortfolioTableModel(portfolioTree);
+    private final JLabel portfolioSummary = new JLabel();
+    private JDialog portfolioDialog;
     private final JTextArea outputArea = new JTextArea();
     private final JTextField stockField = new JTextField();
+    // Type-ahead for stockField: one cursor and a fixed set of menu items,
+    // reused on every keystroke.
+    private static final int MAX_SUGGESTIONS = 8;
+    private final StockAVLTree.Cursor suggestionCursor = portfolioTree.cursor();
+    private final JPopupMenu suggestions = new JPopupMenu();
+    private final JMenuItem[] suggestionItems = new JMenuItem[MAX_SUGGESTIONS];
+    private boolean pickingSuggestion;
     private final JTextField quantityField = new JTextField();
     private final JTextField priceField = new JTextField();
     private final String username;
     private final String portfolioFile;
+    private TradeJournal journal;
 
-    public StockDashboard(String username) {
+    // Throws if the portfolio's trade journal cannot be opened: trades could
+    // not be made durable, so there is no session.
+    public StockDashboard(String username) throws IOException {
         this.username = username;
         this.portfolioFile = username + "_portfolio.csv";
-        loadPortfolioFromCSV();
+        loadPortfolio();
+        replayHistory();
 
         setTitle("Stock Dashboard - Welcome " + username);
         setSize(700, 500);
@@ -249,11 +49,14 @@ public class StockDashboard extends JFrame {
         setLayout(new BorderLayout());
 
         outputArea.setEditable(false);
+        // Monospaced so the analytics tables line up.
+        outputArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
         add(new JScrollPane(outputArea), BorderLayout.CENTER);
 
         JPanel inputPanel = new JPanel(new GridLayout(4, 2));
         inputPanel.add(new JLabel("Stock:"));
         inputPanel.add(stockField);
+        setUpSuggestions();
         inputPanel.add(new JLabel("Quantity:"));
         inputPanel.add(quantityField);
         inputPanel.add(new JLabel("Price:"));
@@ -270,28 +73,26 @@ public class StockDashboard extends JFrame {
         JButton viewHeapBtn = new JButton("Top Trades");
         JButton logoutBtn = new JButton("Logout");
         JButton exportCSVBtn = new JButton("Export Portfolio to CSV");
+        JButton importCSVBtn = new JButton("Import Portfolio from CSV");
         JButton viewHistoryBtn = new JButton("View Transaction History");
+        JButton analyticsBtn = new JButton("Analytics");
+        JButton importOrdersBtn = new JButton("Import Orders");
 
 
         bottomPanel.add(viewPortfolioBtn);
         bottomPanel.add(viewHeapBtn);
         bottomPanel.add(viewHistoryBtn); 
+        bottomPanel.add(analyticsBtn);
+        bottomPanel.add(importOrdersBtn);
         bottomPanel.add(exportCSVBtn);
+        bottomPanel.add(importCSVBtn);
         bottomPanel.add(logoutBtn);
         add(bottomPanel, BorderLayout.SOUTH);
 
         buyBtn.addActionListener(e -> buyStock());
         sellBtn.addActionListener(e -> sellStock());
-        viewPortfolioBtn.addActionListener(e -> outputArea.setText(portfolioTree.getPortfolioString()));
-        viewHeapBtn.addActionListener(e -> {
-            StringBuilder sb = new StringBuilder();
-            for (Trade t : performanceHeap.getSortedTrades()) {
-                sb.append("Stock: ").append(t.getStockName())
-                  .append(" | Qty: ").append(t.getQuantity())
-                  .append(" | Profit: ").append(t.getProfit()).append("\n");
-            }
-            outputArea.setText(sb.toString());
-        });
+        viewPortfolioBtn.addActionListener(e -> showPortfolio());
+        viewHeapBtn.addActionListener(e -> outputArea.setText(renderTopTrades()));
         exportCSVBtn.addActionListener(e -> {
             JFileChooser fileChooser = new JFileChooser();
             if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
@@ -300,37 +101,261 @@ public class StockDashboard extends JFrame {
                 JOptionPane.showMessageDialog(this, "Portfolio exported to " + file.getName());
             }
         });
-        viewHistoryBtn.addActionListener(e -> {
-            String filename = username + "_transaction_history.csv";
-            StringBuilder sb = new StringBuilder("Transaction History:\n");
-            try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    sb.append(line).append("\n");
-                }
-            } catch (IOException ex) {
-                sb.append("No transaction history found.");
-            }
-            outputArea.setText(sb.toString());
+        importCSVBtn.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION)
+                importPortfolio(fileChooser.getSelectedFile());
+        });
+        viewHistoryBtn.addActionListener(e -> showHistory());
+        analyticsBtn.addActionListener(e -> showAnalytics());
+        importOrdersBtn.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION)
+                importOrders(fileChooser.getSelectedFile());
         });
 
         logoutBtn.addActionListener(e -> {
-            portfolioTree.exportToCSV(portfolioFile);
+            endSession();
             dispose();
             new LoginScreen();
         });
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                endSession();
+            }
+        });
 
         setVisible(true);
     }
 
+    private void setUpSuggestions() {
+        suggestions.setFocusable(false);
+        for (int i = 0; i < MAX_SUGGESTIONS; i++) {
+            JMenuItem item = new JMenuItem();
+            item.addActionListener(e -> {
+                pickingSuggestion = true;
+                stockField.setText(item.getText());
+                pickingSuggestion = false;
+                suggestions.setVisible(false);
+            });
+            suggestionItems[i] = item;
+        }
+        stockField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                updateSuggestions();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                updateSuggestions();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+    }
+
+    // Held tickers starting with what has been typed: a prefix scan of the
+    // portfolio tree, O(log n + MAX_SUGGESTIONS) per keystroke.
+    private void updateSuggestions() {
+        if (pickingSuggestion) return;
+        suggestions.setVisible(false);
+        suggestions.removeAll();
+        String typed = stockField.getText().trim();
+        if (typed.isEmpty() || !stockField.isShowing()) return;
+        suggestionCursor.prefix(typed);
+        int count = 0;
+        for (StockNode node; count < MAX_SUGGESTIONS && (node = suggestionCursor.next()) != null; count++) {
+            suggestionItems[count].setText(node.stockName);
+            suggestions.add(suggestionItems[count]);
+        }
+        if (count == 1 && suggestionItems[0].getText().equals(typed)) return;
+        if (count > 0) suggestions.show(stockField, 0, stockField.getHeight());
+    }
+
+    // Leaderboard straight from the bounded top-K boards: O(K), no sort.
+    private String renderTopTrades() {
+        TopTrades top = performanceHeap.getTopTrades();
+        StringBuilder sb = topTradesText;
+        sb.setLength(0);
+        sb.append("Best trades:\n");
+        for (int i = 0; i < top.bestCount(); i++) {
+            sb.append("Stock: ").append(top.bestName(i))
+              .append(" | Qty: ").append(top.bestQuantity(i))
+              .append(" | Profit: ").append(top.bestProfit(i)).append("\n");
+        }
+        sb.append("\nWorst trades:\n");
+        for (int i = 0; i < top.worstCount(); i++) {
+            sb.append("Stock: ").append(top.worstName(i))
+              .append(" | Qty: ").append(top.worstQuantity(i))
+              .append(" | Profit: ").append(top.worstProfit(i)).append("\n");
+        }
+        return sb.toString();
+    }
+
+    // Holdings in a JTable that stays open beside trading. Trades mark their
+    // symbol in the model, and only those rows are re-rendered.
+    private void showPortfolio() {
+        if (portfolioDialog == null) {
+            JTable table = new JTable(portfolioModel);
+            table.setFillsViewportHeight(true);
+            portfolioDialog = new JDialog(this, "Portfolio", false);
+            portfolioDialog.setLayout(new BorderLayout());
+            portfolioDialog.add(new JScrollPane(table), BorderLayout.CENTER);
+            portfolioDialog.add(portfolioSummary, BorderLayout.SOUTH);
+            portfolioDialog.setSize(500, 400);
+            portfolioDialog.setLocationRelativeTo(this);
+        }
+        refreshPortfolio();
+        portfolioDialog.setVisible(true);
+        portfolioDialog.toFront();
+    }
+
+    // Changed rows are brought over at once while the portfolio is on
+    // screen, otherwise when it is next shown.
+    private void portfolioChanged() {
+        if (portfolioDialog != null && portfolioDialog.isVisible()) refreshPortfolio();
+    }
+
+    private void refreshPortfolio() {
+        portfolioModel.refresh();
+        portfolioSummary.setText(" Positions: " + portfolioTree.size() + " | Shares: "
+                + portfolioTree.totalQuantity() + " | Cost Basis: " + portfolioTree.totalCost());
+    }
+
+    // Volume, VWAP, buy/sell counts, realized P&L and daily/hourly activity,
+    // aggregated in parallel off the event thread.
+    private void showAnalytics() {
+        String filename = username + "_transaction_history.csv";
+        if (!new File(filename).exists()) {
+            outputArea.setText("No transaction history found.");
+            return;
+        }
+        outputArea.setText("Analyzing transaction history...");
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws IOException {
+                return HistoryAnalytics.analyze(HistoryFile.forHistory(filename)).format(20);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    outputArea.setText(get());
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    outputArea.setText("Could not analyze the transaction history.");
+                }
+            }
+        }.execute();
+    }
+
+    // Transaction history in a JTable whose model reads rows from the binary
+    // history file only as they scroll into view. Opening the file (which may
+    // first catch up with the CSV) and every filter/sort run off the EDT.
+    private void showHistory() {
+        String filename = username + "_transaction_history.csv";
+        if (!new File(filename).exists()) {
+            outputArea.setText("Transaction History:\nNo transaction history found.");
+            return;
+        }
+        HistoryTableModel model = new HistoryTableModel();
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        JTextField symbolFilter = new JTextField(8);
+        JComboBox<String> sideFilter = new JComboBox<>(new String[] {"All", "BUY", "SELL"});
+        JButton applyBtn = new JButton("Apply");
+        JButton refreshBtn = new JButton("Refresh");
+        JLabel status = new JLabel("Loading...");
+        int[] sort = {-1, 1};  // column, ascending (1) or descending (0)
+
+        Runnable showCount = () -> status.setText(model.getRowCount() + " rows");
+        Runnable apply = () -> {
+            status.setText("Loading...");
+            byte side = sideFilter.getSelectedIndex() == 1 ? HistoryFile.BUY
+                      : sideFilter.getSelectedIndex() == 2 ? HistoryFile.SELL : 0;
+            model.query(symbolFilter.getText().trim(), side, sort[0], sort[1] == 1, showCount);
+        };
+        applyBtn.addActionListener(e -> apply.run());
+        symbolFilter.addActionListener(e -> apply.run());
+        refreshBtn.addActionListener(e -> {
+            model.refresh();
+            showCount.run();
+        });
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(table.columnAtPoint(e.getPoint()));
+                sort[1] = (column == sort[0] && sort[1] == 1) ? 0 : 1;
+                sort[0] = column;
+                apply.run();
+            }
+        });
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.add(new JLabel("Stock:"));
+        filterPanel.add(symbolFilter);
+        filterPanel.add(new JLabel("Side:"));
+        filterPanel.add(sideFilter);
+        filterPanel.add(applyBtn);
+        filterPanel.add(refreshBtn);
+        filterPanel.add(status);
+
+        JDialog dialog = new JDialog(this, "Transaction History", false);
+        dialog.setLayout(new BorderLayout());
+        dialog.add(filterPanel, BorderLayout.NORTH);
+        dialog.add(new JScrollPane(table), BorderLayout.CENTER);
+        dialog.setSize(650, 450);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+
+        new SwingWorker<HistoryFile, Void>() {
+            @Override
+            protected HistoryFile doInBackground() throws IOException {
+                return HistoryFile.forHistory(filename);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    model.setHistory(get());
+                    showCount.run();
+                    int last = model.getRowCount() - 1;
+                    if (last >= 0) table.scrollRectToVisible(table.getCellRect(last, 0, true));
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    status.setText("No transaction history found.");
+                }
+            }
+        }.execute();
+    }
+
     private void buyStock() {
         try {
             String stock = stockField.getText().trim();
             int qty = Integer.parseInt(quantityField.getText().trim());
             double price = Double.parseDouble(priceField.getText().trim());
-            portfolioTree.insert(stock, qty, price);
+            // Timed from the journal append through the tree update; logging has its own timer.
+            long started = Metrics.BUY_STOCK.start();
+            try {
+                synchronized (journal) {
+                    journal.append(TradeJournal.BUY, stock, qty, price);
+                    portfolioTree.insert(stock, qty, price);
+                    if (lots != null) lots.buy(stock, qty, price);
+                }
+            } finally {
+                Metrics.BUY_STOCK.stop(started);
+            }
+            portfolioModel.changed(stock);
+            portfolioChanged();
             logTransaction("BUY", stock, qty, price);
             JOptionPane.showMessageDialog(this, "Stock bought successfully.");
+        } catch (IOException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Could not record the trade.");
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Invalid input.");
         }
@@ -346,41 +371,145 @@ public class StockDashboard extends JFrame {
                 JOptionPane.showMessageDialog(this, "Not enough stock to sell.");
                 return;
             }
-            double profit = (price - node.averagePrice) * qty;
-            portfolioTree.delete(stock, qty);
-            performanceHeap.insert(stock, qty, profit);
+            double averageCost = node.averagePrice;
+            long started = Metrics.SELL_STOCK.start();
+            try {
+                synchronized (journal) {
+                    journal.append(TradeJournal.SELL, stock, qty, price);
+                    portfolioTree.delete(stock, qty);
+                    if (lots != null) lots.sell(stock, qty, price, averageCost, performanceHeap::insert);
+                    else performanceHeap.insert(stock, qty, (price - averageCost) * qty);
+                }
+            } finally {
+                Metrics.SELL_STOCK.stop(started);
+            }
+            portfolioModel.changed(stock);
+            portfolioChanged();
             logTransaction("SELL", stock, qty, price);
             JOptionPane.showMessageDialog(this, "Stock sold successfully.");
+        } catch (IOException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Could not record the trade.");
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Invalid input.");
         }
     }
 
+    // Replace the portfolio with a CSV export. The journal has no record of the
+    // replacement, so it is checkpointed straight away; a file that does not
+    // read leaves the portfolio untouched.
+    private void importPortfolio(File file) {
+        StockAVLTree.Rows rows = new StockAVLTree.Rows();
+        try {
+            PortfolioSnapshot.readCSV(file.toPath(), rows::add);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not read portfolio: " + e.getMessage());
+            return;
+        }
+        try {
+            synchronized (journal) {
+                portfolioTree.bulkLoad(rows);
+                journal.forceCheckpoint();
+                if (lots != null) lots.reconcile(portfolioTree::writeRows);
+            }
+            portfolioModel.reloadAll();
+            showPortfolio();
+        } catch (IOException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Could not save the imported portfolio.");
+        }
+    }
+
+    // Apply a file of orders as one batch: a single merge into the tree, one
+    // journal append, one bulk heap insert and one history append.
+    private void importOrders(File file) {
+        OrderBatch batch;
+        try {
+            batch = OrderBatch.read(file.getAbsolutePath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not read orders: " + e.getMessage());
+            return;
+        }
+        try {
+            synchronized (journal) {
+                StockNode merged = portfolioTree.mergeBatch(batch);
+                journal.appendAll(batch);
+                portfolioTree.root = merged;
+                if (lots != null) lots.applyBatch(batch, performanceHeap::insert);
+                else performanceHeap.insertAll(batch.sellNames(), batch.sellQuantities(), batch.sellProfits(),
+                        batch.sellCount());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Could not record the trades.");
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++)
+            if (!batch.isRejected(i)) portfolioModel.changed(batch.stockName(i));
+        portfolioChanged();
+        try {
+            TransactionLogger.forFile(username + "_transaction_history.csv").logAll(batch);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        outputArea.setText(batch.acceptedCount() + " orders applied, " + batch.rejectedCount()
+                + " rejected.\n" + batch.rejectionReport());
+    }
+
     private void logTransaction(String type, String stock, int qty, double price) {
         String filename = username + "_transaction_history.csv";
-        String time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-        try (FileWriter fw = new FileWriter(filename, true)) {
-            fw.write(type + "," + stock + "," + qty + "," + price + "," + time + "\n");
+        try {
+            TransactionLogger.forFile(filename).log(type, stock, qty, price);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private void loadPortfolioFromCSV() {
-        File file = new File(portfolioFile);
-        if (!file.exists()) return;
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            br.readLine(); // skip header
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 3) {
-                    String stock = parts[0];
-                    int qty = Integer.parseInt(parts[1]);
-                    double price = Double.parseDouble(parts[2]);
-                    portfolioTree.insert(stock, qty, price);
-                }
+    // The binary snapshot (or the CSV before the first checkpoint), then the
+    // trades logged since.
+    private void loadPortfolio() throws IOException {
+        long started = Metrics.LOAD_PORTFOLIO.start();
+        try {
+            StockAVLTree.Rows rows = new StockAVLTree.Rows();
+            long lsn = PortfolioSnapshot.load(portfolioFile, rows::add);
+            portfolioTree.bulkLoad(rows);
+            TradeJournal opened = new TradeJournal(portfolioFile, portfolioTree::writeRows);
+            try {
+                opened.recover(lsn, (type, stock, qty, price) -> {
+                    if (type == TradeJournal.BUY) portfolioTree.insert(stock, qty, price);
+                    else portfolioTree.delete(stock, qty);
+                });
+            } catch (IOException e) {
+                opened.close();
+                throw e;
+            }
+            journal = opened;
+        } finally {
+            Metrics.LOAD_PORTFOLIO.stop(started);
+        }
+        Metrics.gauge("portfolio.size", () -> portfolioTree.size());
+        Metrics.gauge("portfolio.height", () -> portfolioTree.height(portfolioTree.root));
+        Metrics.gauge("trades.heapSize", () -> performanceHeap.size());
+    }
+
+    // Rebuild "Top Trades" (and the tax lots) by streaming the transaction
+    // history once.
+    private void replayHistory() {
+        String filename = username + "_transaction_history.csv";
+        if (new File(filename).exists()) {
+            try {
+                HistoryReplay.replay(HistoryFile.forHistory(filename), performanceHeap::insert, lots);
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+        }
+        if (lots != null) lots.reconcile(portfolioTree::writeRows);
+    }
+
+    private void endSession() {
+        try {
+            journal.close();
+            TransactionLogger.release(username + "_transaction_history.csv");
         } catch (IOException e) {
             e.printStackTrace();
         }
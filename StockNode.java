@@ -0,0 +1,26 @@
+package stockTrackerProject;
+
+class StockNode {
+    String stockName;
+    // SymbolTable.sortKey(stockName): descents compare this before the name.
+    long sortKey;
+    int quantity;
+    double averagePrice;
+    int height;
+    // Aggregates over this subtree, kept current by StockAVLTree.update.
+    int size;
+    long totalQuantity;
+    double totalCost;
+    StockNode left, right;
+
+    StockNode(String stockName, int quantity, double averagePrice) {
+        this.stockName = stockName;
+        this.sortKey = SymbolTable.sortKey(stockName);
+        this.quantity = quantity;
+        this.averagePrice = averagePrice;
+        this.height = 1;
+        this.size = 1;
+        this.totalQuantity = quantity;
+        this.totalCost = averagePrice * quantity;
+    }
+}
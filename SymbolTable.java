@@ -0,0 +1,174 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process-wide ticker dictionary: each ticker gets a dense int id, so trade
+// records (DaryTradeHeap, TopTrades) hold an int instead of a String.
+//
+// Ids are dense (0, 1, 2, ... in first-seen order) and persisted next to the
+// user files in "symbols.sym", one ticker per line, the id being the line
+// number, so a ticker keeps its id across runs. The file is only appended to,
+// under an exclusive file lock, and re-read past what this process has seen
+// before each append, so several processes sharing a directory agree on ids.
+//
+// Ids follow first appearance, not name order. For ordering, sortKey packs a
+// ticker's first characters into a long whose order matches String.compareTo,
+// so tree descents compare longs and only fall back to the names on a tie.
+public final class SymbolTable {
+    public static final String DEFAULT_FILE = "symbols.sym";
+    // Characters packed by sortKey: 9 of 7 bits each fill 63 bits.
+    static final int KEY_CHARS = 9;
+
+    private static volatile SymbolTable global;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private int count;       // guarded by this
+    private Path path;       // null once persistence is off (or never on)
+    private long covered;    // bytes of the file already read
+
+    // In-memory only.
+    public SymbolTable() {
+    }
+
+    @SuppressWarnings("try")  // the lock is held, never referenced
+    public SymbolTable(Path path) throws IOException {
+        this.path = path;
+        if (Files.exists(path)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock lock = channel.lock()) {
+                catchUp(channel);
+            }
+        }
+    }
+
+    // The table shared by the whole process, backed by -Dstock.symbols.file
+    // (default symbols.sym in the working directory).
+    public static SymbolTable global() {
+        SymbolTable table = global;
+        if (table != null) return table;
+        synchronized (SymbolTable.class) {
+            if (global == null) {
+                Path file = Paths.get(System.getProperty("stock.symbols.file", DEFAULT_FILE));
+                try {
+                    global = new SymbolTable(file);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    global = new SymbolTable();
+                }
+            }
+            return global;
+        }
+    }
+
+    // Id of a ticker, assigning (and persisting) the next one if it is new.
+    public int id(String symbol) {
+        Integer id = ids.get(symbol);
+        return (id != null) ? id : assign(symbol);
+    }
+
+    // Id of a ticker, or -1 if it has none yet.
+    public int find(String symbol) {
+        Integer id = ids.get(symbol);
+        return (id == null) ? -1 : id;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    @SuppressWarnings("try")
+    private synchronized int assign(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id != null) return id;
+        if (path != null) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock lock = channel.lock()) {
+                // Another process may have added it (or others) since we last looked.
+                catchUp(channel);
+                id = ids.get(symbol);
+                if (id != null) return id;
+                long position = channel.size();
+                // A torn last line from a crash is ended first, so ids stay line numbers.
+                String torn = (position > covered) ? readLine(channel, covered, position) : null;
+                ByteBuffer line = ByteBuffer.wrap(((torn != null ? "\n" : "") + symbol + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                while (line.hasRemaining()) position += channel.write(line, position);
+                channel.force(false);
+                if (torn != null) add(torn);
+                covered = position;
+            } catch (IOException e) {
+                // Keep trading on in-memory ids rather than fail the trade.
+                e.printStackTrace();
+                path = null;
+            }
+        }
+        return add(symbol);
+    }
+
+    // Called with the file locked: take in every complete line past `covered`.
+    private void catchUp(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size <= covered) return;
+        byte[] data = read(channel, covered, size);
+        int start = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != '\n') continue;
+            add(new String(data, start, i - start, StandardCharsets.UTF_8));
+            start = i + 1;
+        }
+        covered += start;
+    }
+
+    private static String readLine(FileChannel channel, long from, long to) throws IOException {
+        return new String(read(channel, from, to), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] read(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (to - from));
+        while (bytes.hasRemaining() && channel.read(bytes, from + bytes.position()) >= 0) { }
+        return bytes.array();
+    }
+
+    // Called with the monitor held. A repeated line still takes an id so that
+    // ids keep matching line numbers; lookups keep the first.
+    private int add(String symbol) {
+        String[] current = names;
+        if (count == current.length) current = Arrays.copyOf(current, count * 2);
+        current[count] = symbol;
+        names = current;
+        ids.putIfAbsent(symbol, count);
+        return count++;
+    }
+
+    // Order-preserving code for a ticker: sortKey(a) < sortKey(b) implies
+    // a.compareTo(b) < 0, and equal keys (names sharing their first 9
+    // characters) need a String compare. Each character c becomes c + 1 in 7
+    // bits, so the end of a short name sorts before any character. A character
+    // past ASCII becomes 127 and ends the key, leaving such names to tie.
+    public static long sortKey(String symbol) {
+        long key = 0;
+        int n = Math.min(symbol.length(), KEY_CHARS);
+        for (int i = 0; i < KEY_CHARS; i++) {
+            int c = (i < n) ? symbol.charAt(i) + 1 : 0;
+            if (c >= 127) {
+                key = (key << 7) | 127;
+                return key << (7 * (KEY_CHARS - 1 - i));
+            }
+            key = (key << 7) | c;
+        }
+        return key;
+    }
+}
@@ -0,0 +1,289 @@
+package stockTrackerProject;
+
+import java.util.*;
+
+// Tax-lot cost basis. Every BUY opens a lot; a SELL consumes lots in the order
+// the method picks and realizes (sell price - lot price) * shares for each
+// lot it draws on, handed to the sink one lot at a time (typically
+// PerformanceHeap::insert). The portfolio tree keeps its blended average for
+// display and snapshots; only realized profit depends on the method.
+//
+//   FIFO          oldest lot first
+//   LIFO          newest lot first
+//   HIGHEST_COST  dearest lot first (ties: oldest)
+//
+// Lots are numbered by the history row that opened them, counted from 1; 0
+// is an opening lot standing in for shares the history does not account for
+// (see reconcile). Lots are rebuilt from the history at login, which records
+// trades but not which lot a SELL drew on, so the method has to pick lots
+// deterministically; selling a chosen lot (specific identification) would
+// need the history to carry that choice.
+//
+// Each symbol's lots live in parallel primitive arrays: a ring buffer for
+// FIFO and LIFO, which consume from either end in amortized O(1), and a
+// binary max-heap on price for HIGHEST_COST, O(log lots) per lot consumed.
+//
+// Not thread-safe: callers serialize on the portfolio's journal, as they do
+// for the tree.
+public final class TaxLots {
+    public enum Method { FIFO, LIFO, HIGHEST_COST }
+
+    // Receives the open lots of a symbol.
+    public interface LotVisitor {
+        void lot(long number, int shares, double price);
+    }
+
+    private final Method method;
+    private final Map<String, Lots> bySymbol = new HashMap<>();
+    private long nextLot = 1;
+
+    public TaxLots(Method method) {
+        this.method = method;
+    }
+
+    // Lots for the method named by -Dstock.costBasis (fifo, lifo or hifo), or
+    // null for the default, the blended average cost.
+    public static TaxLots configured() {
+        String name = System.getProperty("stock.costBasis", "average").trim().toLowerCase(Locale.ROOT);
+        switch (name) {
+            case "fifo": return new TaxLots(Method.FIFO);
+            case "lifo": return new TaxLots(Method.LIFO);
+            case "hifo": case "highest_cost": return new TaxLots(Method.HIGHEST_COST);
+            case "average": return null;
+            default: throw new IllegalArgumentException("Unknown -Dstock.costBasis: " + name);
+        }
+    }
+
+    public Method method() {
+        return method;
+    }
+
+    // Open a lot for a BUY; returns its number.
+    public long buy(String stockName, int quantity, double price) {
+        long number = nextLot++;
+        open(stockName, number, quantity, price);
+        return number;
+    }
+
+    void open(String stockName, long number, int quantity, double price) {
+        if (quantity <= 0) return;
+        bySymbol.computeIfAbsent(stockName, s -> new Lots()).add(method, number, quantity, price);
+        if (number >= nextLot) nextLot = number + 1;
+    }
+
+    // Number the next trade gets: one past the last history row.
+    void nextLot(long number) {
+        nextLot = number;
+    }
+
+    // Consume `quantity` shares in method order and hand each lot's realized
+    // profit to the sink; returns the total. Shares beyond the open lots
+    // (none once reconciled) are realized against averageCost. A SELL takes
+    // a history row too, so it uses up a lot number.
+    public double sell(String stockName, int quantity, double price, double averageCost,
+                       HistoryReplay.TradeSink sink) {
+        nextLot++;
+        Lots lots = bySymbol.get(stockName);
+        double realized = 0;
+        int remaining = quantity;
+        while (remaining > 0 && lots != null && lots.size > 0) {
+            int slot = lots.next(method);
+            int take = Math.min(remaining, lots.shares[slot]);
+            double profit = (price - lots.prices[slot]) * take;
+            sink.trade(stockName, take, profit);
+            realized += profit;
+            remaining -= take;
+            lots.held -= take;
+            if ((lots.shares[slot] -= take) == 0) lots.removeNext(method);
+        }
+        if (remaining > 0) {
+            double profit = (price - averageCost) * remaining;
+            sink.trade(stockName, remaining, profit);
+            realized += profit;
+        }
+        if (lots != null && lots.size == 0) bySymbol.remove(stockName);
+        return realized;
+    }
+
+    // The lot accounting of an applied OrderBatch, in the order the tree
+    // merged it (by stock, file order within one): BUYs open lots and every
+    // accepted SELL consumes them, its profit going to the sink per lot. The
+    // batch's own average-cost profit is only the fallback for shares
+    // without a lot.
+    public void applyBatch(OrderBatch batch, HistoryReplay.TradeSink sink) {
+        int sell = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.isRejected(i)) continue;
+            int quantity = batch.quantity(i);
+            double price = batch.price(i);
+            if (batch.type(i) == OrderBatch.BUY) {
+                buy(batch.stockName(i), quantity, price);
+            } else {
+                double averageCost = price - batch.sellProfits()[sell++] / quantity;
+                sell(batch.stockName(i), quantity, price, averageCost, sink);
+            }
+        }
+    }
+
+    // Make the lots hold exactly the portfolio's shares: a symbol short of
+    // lots gets an opening lot (number 0, oldest) at its average price for
+    // the difference, lots beyond the holding are dropped in method order,
+    // and symbols no longer held lose their lots. Needed after login, since
+    // the portfolio and the history are separate files (an imported
+    // portfolio has no history at all), and after a portfolio import.
+    public void reconcile(TradeJournal.SnapshotWriter portfolio) {
+        Set<String> held = new HashSet<>();
+        portfolio.writeRows((stockName, quantity, averagePrice) -> {
+            held.add(stockName);
+            Lots lots = bySymbol.get(stockName);
+            long open = lots == null ? 0 : lots.held;
+            if (open < quantity) {
+                if (lots == null) bySymbol.put(stockName, lots = new Lots());
+                lots.addOldest(method, 0, (int) (quantity - open), averagePrice);
+            }
+            while (lots != null && lots.held > quantity) {
+                int slot = lots.next(method);
+                int take = (int) Math.min(lots.held - quantity, lots.shares[slot]);
+                lots.held -= take;
+                if ((lots.shares[slot] -= take) == 0) lots.removeNext(method);
+            }
+        });
+        bySymbol.keySet().retainAll(held);
+    }
+
+    // Open lots of a symbol, oldest first.
+    public void lots(String stockName, LotVisitor visitor) {
+        Lots lots = bySymbol.get(stockName);
+        if (lots == null) return;
+        Integer[] order = new Integer[lots.size];
+        for (int i = 0; i < lots.size; i++) order[i] = (lots.head + i) & (lots.ids.length - 1);
+        if (method == Method.HIGHEST_COST) Arrays.sort(order, (a, b) -> Long.compare(lots.ids[a], lots.ids[b]));
+        for (int slot : order) visitor.lot(lots.ids[slot], lots.shares[slot], lots.prices[slot]);
+    }
+
+    // Shares in open lots of a symbol.
+    public long held(String stockName) {
+        Lots lots = bySymbol.get(stockName);
+        return lots == null ? 0 : lots.held;
+    }
+
+    // Take over the lots of `other`, whose symbols this one does not track
+    // (a replay partition).
+    void adopt(TaxLots other) {
+        bySymbol.putAll(other.bySymbol);
+        nextLot = Math.max(nextLot, other.nextLot);
+    }
+
+    // One symbol's lots. Capacity is a power of two; the ring runs from head
+    // for size slots, and as a heap head stays 0.
+    static final class Lots {
+        long[] ids = new long[4];
+        int[] shares = new int[4];
+        double[] prices = new double[4];
+        int head, size;
+        long held;
+
+        void add(Method method, long id, int quantity, double price) {
+            if (size == ids.length) grow();
+            int slot = (head + size) & (ids.length - 1);
+            set(slot, id, quantity, price);
+            size++;
+            held += quantity;
+            if (method == Method.HIGHEST_COST) siftUp(slot);
+        }
+
+        // Before every other lot in buy order.
+        void addOldest(Method method, long id, int quantity, double price) {
+            if (method == Method.HIGHEST_COST) {
+                add(method, id, quantity, price);
+                return;
+            }
+            if (size == ids.length) grow();
+            head = (head - 1) & (ids.length - 1);
+            set(head, id, quantity, price);
+            size++;
+            held += quantity;
+        }
+
+        // Slot of the lot the method sells next.
+        int next(Method method) {
+            return method == Method.LIFO ? (head + size - 1) & (ids.length - 1) : head;
+        }
+
+        void removeNext(Method method) {
+            switch (method) {
+                case FIFO:
+                    head = (head + 1) & (ids.length - 1);
+                    size--;
+                    break;
+                case LIFO:
+                    size--;
+                    break;
+                default:
+                    // The last heap slot fills the root and sinks.
+                    int last = --size;
+                    if (last > 0) {
+                        set(0, ids[last], shares[last], prices[last]);
+                        siftDown(0);
+                    }
+            }
+        }
+
+        private void set(int slot, long id, int quantity, double price) {
+            ids[slot] = id;
+            shares[slot] = quantity;
+            prices[slot] = price;
+        }
+
+        // Unwrap the ring into arrays twice the size (heap order is kept).
+        private void grow() {
+            int n = ids.length, mask = n - 1;
+            long[] newIds = new long[n * 2];
+            int[] newShares = new int[n * 2];
+            double[] newPrices = new double[n * 2];
+            for (int i = 0; i < size; i++) {
+                int slot = (head + i) & mask;
+                newIds[i] = ids[slot];
+                newShares[i] = shares[slot];
+                newPrices[i] = prices[slot];
+            }
+            ids = newIds;
+            shares = newShares;
+            prices = newPrices;
+            head = 0;
+        }
+
+        // Heap order: higher price first, then the older lot.
+        private boolean before(int a, int b) {
+            return prices[a] != prices[b] ? prices[a] > prices[b] : ids[a] < ids[b];
+        }
+
+        private void siftUp(int slot) {
+            while (slot > 0) {
+                int parent = (slot - 1) >>> 1;
+                if (!before(slot, parent)) break;
+                swap(slot, parent);
+                slot = parent;
+            }
+        }
+
+        private void siftDown(int slot) {
+            while (true) {
+                int child = 2 * slot + 1;
+                if (child >= size) break;
+                if (child + 1 < size && before(child + 1, child)) child++;
+                if (!before(child, slot)) break;
+                swap(slot, child);
+                slot = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            int quantity = shares[a];
+            double price = prices[a];
+            set(a, ids[b], shares[b], prices[b]);
+            set(b, id, quantity, price);
+        }
+    }
+}
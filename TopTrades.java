@@ -0,0 +1,92 @@
+package stockTrackerProject;
+
+// Bounded leaderboard of the K most and K least profitable trades.
+//
+// Each side is a small array kept sorted by profit, so a trade that does not
+// make the board is rejected with one comparison, a trade that does costs an
+// O(K) shift, and reading the board in rank order is O(K) with no sorting and
+// no allocation. Only 2K trades are ever retained, however many are recorded.
+// Tickers are held as SymbolTable ids.
+public class TopTrades {
+    private final int k;
+    private final int[] bestSymbols, worstSymbols;
+    private final int[] bestQuantities, worstQuantities;
+    private final double[] bestProfits, worstProfits;  // descending / ascending
+    private int bestCount, worstCount;
+    private long recorded;
+
+    public TopTrades(int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be positive: " + k);
+        this.k = k;
+        bestSymbols = new int[k];
+        worstSymbols = new int[k];
+        bestQuantities = new int[k];
+        worstQuantities = new int[k];
+        bestProfits = new double[k];
+        worstProfits = new double[k];
+    }
+
+    public int capacity() {
+        return k;
+    }
+
+    // Trades recorded so far, including those that did not make the board.
+    public long recorded() {
+        return recorded;
+    }
+
+    public void record(String stockName, int quantity, double profit) {
+        record(SymbolTable.global().id(stockName), quantity, profit);
+    }
+
+    public void record(int symbolId, int quantity, double profit) {
+        recorded++;
+        // Best board, descending: insert before the first smaller profit.
+        if (bestCount < k || profit > bestProfits[bestCount - 1]) {
+            int i = Math.min(bestCount, k - 1);
+            while (i > 0 && bestProfits[i - 1] < profit) {
+                bestSymbols[i] = bestSymbols[i - 1];
+                bestQuantities[i] = bestQuantities[i - 1];
+                bestProfits[i] = bestProfits[i - 1];
+                i--;
+            }
+            bestSymbols[i] = symbolId;
+            bestQuantities[i] = quantity;
+            bestProfits[i] = profit;
+            if (bestCount < k) bestCount++;
+        }
+        // Worst board, ascending.
+        if (worstCount < k || profit < worstProfits[worstCount - 1]) {
+            int i = Math.min(worstCount, k - 1);
+            while (i > 0 && worstProfits[i - 1] > profit) {
+                worstSymbols[i] = worstSymbols[i - 1];
+                worstQuantities[i] = worstQuantities[i - 1];
+                worstProfits[i] = worstProfits[i - 1];
+                i--;
+            }
+            worstSymbols[i] = symbolId;
+            worstQuantities[i] = quantity;
+            worstProfits[i] = profit;
+            if (worstCount < k) worstCount++;
+        }
+    }
+
+    public void clear() {
+        bestCount = worstCount = 0;
+        recorded = 0;
+    }
+
+    // Rank 0 is the most profitable trade.
+    public int bestCount() { return bestCount; }
+    public int bestSymbolId(int rank) { return bestSymbols[rank]; }
+    public String bestName(int rank) { return SymbolTable.global().name(bestSymbols[rank]); }
+    public int bestQuantity(int rank) { return bestQuantities[rank]; }
+    public double bestProfit(int rank) { return bestProfits[rank]; }
+
+    // Rank 0 is the biggest loss (least profitable trade).
+    public int worstCount() { return worstCount; }
+    public int worstSymbolId(int rank) { return worstSymbols[rank]; }
+    public String worstName(int rank) { return SymbolTable.global().name(worstSymbols[rank]); }
+    public int worstQuantity(int rank) { return worstQuantities[rank]; }
+    public double worstProfit(int rank) { return worstProfits[rank]; }
+}
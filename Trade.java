@@ -0,0 +1,25 @@
+package stockTrackerProject;
+
+class Trade {
+    String stockName;
+    int quantity;
+    double profit;
+
+    Trade(String stockName, int quantity, double profit) {
+        this.stockName = stockName;
+        this.quantity = quantity;
+        this.profit = profit;
+    }
+
+    public String getStockName() {
+        return stockName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getProfit() {
+        return profit;
+    }
+}
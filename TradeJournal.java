@@ -0,0 +1,384 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+// Append-only write-ahead log of portfolio mutations with periodic checkpoints.
+//
+// Every buy/sell is appended to "<user>_portfolio.wal" as a small binary record
+// instead of rewriting the whole portfolio. A checkpoint writes the full
+// portfolio as a binary PortfolioSnapshot ("<user>_portfolio.snap", temp file
+// + atomic rename), copies the log to "<user>_portfolio.wal.prev", then
+// truncates the log. The snapshot carries the LSN it covers and recovery
+// replays only records newer than that LSN, so a crash between the rename and
+// the truncate never applies a trade twice. The previous log holds the
+// records since the previous snapshot generation, so recovery can start from
+// either snapshot. Recovery refuses a log that skips LSNs after the snapshot
+// loaded rather than silently dropping the missing trades.
+//
+// Callers must apply a trade to the tree and append it while holding the
+// journal's monitor (synchronized (journal) { ... }); the checkpointer takes the
+// same monitor, so snapshots never see a half-applied trade.
+public class TradeJournal implements Closeable {
+    public static final byte BUY = 1;
+    public static final byte SELL = 2;
+
+    private static final int MAGIC = 0x5457414C;  // "TWAL"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 6;
+    private static final int MAX_RECORD_SIZE = 512;
+
+    // Receives each logged trade during recovery.
+    public interface Replayer {
+        void apply(byte type, String stockName, int quantity, double price);
+    }
+
+    // Hands the current portfolio rows to the sink, sorted by stock name.
+    public interface SnapshotWriter {
+        void writeRows(PortfolioSnapshot.RowSink sink);
+    }
+
+    private final Path snapshotPath;
+    private final Path walPath;
+    private final Path previousWalPath;
+    private final SnapshotWriter snapshot;
+    private final int syncEveryRecords;
+    private final int checkpointEveryRecords;
+    private final FileChannel channel;
+    private final ScheduledExecutorService background;
+    private final boolean ownsBackground;
+    private final ScheduledFuture<?> syncTask;
+    private final ScheduledFuture<?> checkpointTask;
+    private final ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private long lastLsn;
+    private long syncedLsn;
+    private long checkpointLsn;
+    private boolean recovered;
+    private boolean checkpointPending;
+    private boolean closed;
+
+    // Defaults: group commit of up to 32 records or 50 ms, checkpoint every
+    // 1000 records or 60 seconds.
+    public TradeJournal(String portfolioFile, SnapshotWriter snapshot) throws IOException {
+        this(portfolioFile, snapshot, 32, 50, 1000, 60);
+    }
+
+    // syncEveryRecords = 1 forces the log to disk on every trade; larger values
+    // group-commit, bounded in time by syncIntervalMillis (0 disables the
+    // timer). A checkpoint runs every checkpointEveryRecords records or every
+    // checkpointSeconds, whichever comes first.
+    public TradeJournal(String portfolioFile, SnapshotWriter snapshot, int syncEveryRecords,
+                        long syncIntervalMillis, int checkpointEveryRecords,
+                        long checkpointSeconds) throws IOException {
+        this(portfolioFile, snapshot, syncEveryRecords, syncIntervalMillis, checkpointEveryRecords,
+                checkpointSeconds, null);
+    }
+
+    // Default settings, with group commits and checkpoints run on a scheduler
+    // shared by many journals (one per logged-in user on a server) instead of a
+    // thread of their own. close() leaves a shared scheduler running.
+    public TradeJournal(String portfolioFile, SnapshotWriter snapshot, ScheduledExecutorService scheduler)
+            throws IOException {
+        this(portfolioFile, snapshot, 32, 50, 1000, 60, scheduler);
+    }
+
+    private TradeJournal(String portfolioFile, SnapshotWriter snapshot, int syncEveryRecords,
+                         long syncIntervalMillis, int checkpointEveryRecords,
+                         long checkpointSeconds, ScheduledExecutorService scheduler) throws IOException {
+        this.snapshotPath = PortfolioSnapshot.forPortfolio(portfolioFile);
+        this.snapshot = snapshot;
+        this.syncEveryRecords = Math.max(1, syncEveryRecords);
+        this.checkpointEveryRecords = Math.max(1, checkpointEveryRecords);
+        this.walPath = forPortfolio(portfolioFile);
+        this.previousWalPath = previous(walPath);
+        this.channel = FileChannel.open(walPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION);
+            header.flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        this.ownsBackground = scheduler == null;
+        this.background = scheduler != null ? scheduler : Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "trade-journal-" + walPath.getFileName());
+            t.setDaemon(true);
+            return t;
+        });
+        this.syncTask = syncIntervalMillis > 0 && this.syncEveryRecords > 1
+                ? background.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis,
+                        syncIntervalMillis, TimeUnit.MILLISECONDS)
+                : null;
+        this.checkpointTask = checkpointSeconds > 0
+                ? background.scheduleWithFixedDelay(this::checkpointQuietly, checkpointSeconds,
+                        checkpointSeconds, TimeUnit.SECONDS)
+                : null;
+    }
+
+    // Replay log records newer than fromLsn, the LSN of the portfolio already
+    // loaded (PortfolioSnapshot.load returns it): the previous log, then this
+    // one. A torn or corrupt tail (crash mid-append) is cut off. Throws, with
+    // the journal left unrecovered, if the records after fromLsn skip an LSN:
+    // the portfolio is older than the logs reach back.
+    public synchronized void recover(long fromLsn, Replayer replayer) throws IOException {
+        long[] applied = {fromLsn};
+        if (Files.exists(previousWalPath)) scan(previousWalPath, applied, replayer);
+        long goodEnd = scan(walPath, applied, replayer);
+        if (channel.size() > goodEnd) {
+            channel.truncate(goodEnd);
+            channel.force(true);
+        }
+        lastLsn = syncedLsn = applied[0];
+        checkpointLsn = fromLsn;
+        recovered = true;
+    }
+
+    // "<user>_portfolio.wal" for "<user>_portfolio.csv".
+    public static Path forPortfolio(String portfolioFile) {
+        String base = portfolioFile.endsWith(".csv")
+                ? portfolioFile.substring(0, portfolioFile.length() - 4) : portfolioFile;
+        return Paths.get(base + ".wal");
+    }
+
+    // "<user>_portfolio.wal.prev" for "<user>_portfolio.wal".
+    private static Path previous(Path walPath) {
+        return walPath.resolveSibling(walPath.getFileName() + ".prev");
+    }
+
+    // Read-only recovery for other processes and readers that must not
+    // disturb a journal a session may have open: replays the intact records
+    // newer than fromLsn in both logs and leaves the files as they are.
+    // Returns the last LSN applied (fromLsn if none); a missing log has no
+    // records. Throws on a gap, as recover() does.
+    public static long replay(String portfolioFile, long fromLsn, Replayer replayer) throws IOException {
+        Path wal = forPortfolio(portfolioFile);
+        long[] applied = {fromLsn};
+        if (Files.exists(previous(wal))) scan(previous(wal), applied, replayer);
+        if (Files.exists(wal)) scan(wal, applied, replayer);
+        return applied[0];
+    }
+
+    // Hands the intact records after applied[0], the last LSN applied so far,
+    // to the replayer and advances applied[0]; older records are skipped.
+    // Returns where the intact records end. A record past applied[0] + 1
+    // means trades are missing, and throws.
+    private static long scan(Path walPath, long[] applied, Replayer replayer) throws IOException {
+        long goodEnd = HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(walPath)))) {
+            try {
+                if (in.readInt() != MAGIC || in.readShort() != VERSION)
+                    throw new IOException("Not a trade journal: " + walPath);
+            } catch (EOFException e) {
+                return goodEnd;  // created but no header written yet
+            }
+            CRC32 check = new CRC32();
+            byte[] body = new byte[MAX_RECORD_SIZE];
+            while (true) {
+                int length;
+                try {
+                    length = in.readUnsignedShort();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 23 || length > body.length) break;
+                try {
+                    in.readFully(body, 0, length);
+                    int stored = in.readInt();
+                    check.reset();
+                    check.update(body, 0, length);
+                    if ((int) check.getValue() != stored) break;
+                } catch (EOFException e) {
+                    break;
+                }
+                ByteBuffer r = ByteBuffer.wrap(body, 0, length);
+                long lsn = r.getLong();
+                byte type = r.get();
+                int quantity = r.getInt();
+                double price = r.getDouble();
+                int nameLength = r.getShort();
+                String stockName = new String(body, r.position(), nameLength, StandardCharsets.UTF_8);
+                if (lsn > applied[0] + 1)
+                    throw new IOException("Trade journal " + walPath + " continues at LSN " + lsn
+                            + " but the portfolio covers LSN " + applied[0] + ": trades are missing");
+                if (lsn > applied[0]) {
+                    replayer.apply(type, stockName, quantity, price);
+                    applied[0] = lsn;
+                }
+                goodEnd += 2 + length + 4;
+            }
+        }
+        return goodEnd;
+    }
+
+    // Append one trade; recover() must have run first. Returns once the record
+    // is written; it is on disk once the current group commit completes
+    // (immediately when syncEveryRecords = 1).
+    public synchronized void append(byte type, String stockName, int quantity, double price)
+            throws IOException {
+        if (closed) throw new IOException("Trade journal is closed: " + walPath);
+        if (!recovered) throw new IllegalStateException("recover() must run before append()");
+        long lsn = lastLsn + 1;
+        record.clear();
+        encode(record, lsn, type, stockName, quantity, price);
+        record.flip();
+        long position = channel.size();
+        while (record.hasRemaining())
+            position += channel.write(record, position);
+        lastLsn = lsn;
+        appended();
+    }
+
+    // Append every accepted order of a batch with large sequential writes and
+    // at most one fsync. Nothing is written if any stock name is too long.
+    public synchronized void appendAll(OrderBatch batch) throws IOException {
+        if (closed) throw new IOException("Trade journal is closed: " + walPath);
+        if (!recovered) throw new IllegalStateException("recover() must run before append()");
+        for (int i = 0; i < batch.size(); i++) {
+            if (!batch.isRejected(i) && recordSize(batch.stockName(i)) > record.capacity())
+                throw new IOException("Stock name too long for the journal: " + batch.stockName(i));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = channel.size();
+        long lsn = lastLsn;
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.isRejected(i)) continue;
+            if (buffer.remaining() < record.capacity()) position = write(buffer, position);
+            encode(buffer, ++lsn, batch.type(i), batch.stockName(i), batch.quantity(i), batch.price(i));
+        }
+        write(buffer, position);
+        lastLsn = lsn;
+        appended();
+    }
+
+    private static int recordSize(String stockName) {
+        return 2 + 8 + 1 + 4 + 8 + 2 + stockName.getBytes(StandardCharsets.UTF_8).length + 4;
+    }
+
+    // [length][lsn][type][quantity][price][name length][name][crc of the body]
+    private void encode(ByteBuffer buffer, long lsn, byte type, String stockName, int quantity, double price)
+            throws IOException {
+        byte[] name = stockName.getBytes(StandardCharsets.UTF_8);
+        int length = 8 + 1 + 4 + 8 + 2 + name.length;
+        if (2 + length + 4 > record.capacity())
+            throw new IOException("Stock name too long for the journal: " + stockName);
+        int start = buffer.position();
+        buffer.putShort((short) length);
+        buffer.putLong(lsn).put(type).putInt(quantity).putDouble(price)
+              .putShort((short) name.length).put(name);
+        crc.reset();
+        crc.update(buffer.array(), start + 2, length);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private long write(ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+        buffer.clear();
+        return position;
+    }
+
+    // Group commit and checkpoint scheduling after records were appended.
+    private void appended() throws IOException {
+        if (lastLsn - syncedLsn >= syncEveryRecords) {
+            channel.force(false);
+            syncedLsn = lastLsn;
+        }
+        if (lastLsn - checkpointLsn >= checkpointEveryRecords && !checkpointPending) {
+            checkpointPending = true;
+            background.execute(this::checkpointQuietly);
+        }
+    }
+
+    // Force all appended records to disk. The fsync runs outside the monitor so
+    // trades keep appending while it is in flight.
+    public void sync() throws IOException {
+        long target;
+        synchronized (this) {
+            if (closed || syncedLsn >= lastLsn) return;
+            target = lastLsn;
+        }
+        channel.force(false);
+        synchronized (this) {
+            if (target > syncedLsn) syncedLsn = target;
+        }
+    }
+
+    // Write a full snapshot and truncate the log.
+    public synchronized void checkpoint() throws IOException {
+        checkpoint(false);
+    }
+
+    // Write a snapshot even if no trade was logged since the last one, after
+    // the whole tree was replaced (a CSV import). Call with the monitor held
+    // across the replacement.
+    public synchronized void forceCheckpoint() throws IOException {
+        checkpoint(true);
+    }
+
+    private void checkpoint(boolean force) throws IOException {
+        checkpointPending = false;
+        if (closed || !recovered || (!force && lastLsn == checkpointLsn && Files.exists(snapshotPath))) return;
+        PortfolioSnapshot.write(snapshotPath, lastLsn, snapshot);
+        keepPreviousLog();
+        channel.truncate(HEADER_SIZE);
+        channel.force(true);
+        checkpointLsn = syncedLsn = lastLsn;
+    }
+
+    // Copy the log, which now holds the records since the previous snapshot
+    // generation, over the previous log (temp file + atomic rename).
+    private void keepPreviousLog() throws IOException {
+        Path temp = previousWalPath.resolveSibling(previousWalPath.getFileName() + ".tmp");
+        try (FileChannel copy = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = channel.size();
+            for (long position = 0; position < size; )
+                position += channel.transferTo(position, size - position, copy);
+            copy.force(true);
+        }
+        PortfolioSnapshot.replace(temp, previousWalPath);
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Final checkpoint, then release the log file.
+    @Override
+    public void close() throws IOException {
+        if (syncTask != null) syncTask.cancel(false);
+        if (checkpointTask != null) checkpointTask.cancel(false);
+        if (ownsBackground) background.shutdownNow();
+        synchronized (this) {
+            if (closed) return;
+            try {
+                checkpoint();
+            } finally {
+                closed = true;
+                channel.close();
+            }
+        }
+    }
+}
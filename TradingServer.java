@@ -0,0 +1,523 @@
+package stockTrackerProject;
+
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Headless multi-user front end: the same StockAVLTree, PerformanceHeap,
+// TradeJournal and TransactionLogger the dashboard uses, over HTTP.
+//
+//   POST /register   user, password
+//   POST /login      user, password          -> {"token": "..."}
+//   POST /logout
+//   POST /buy        stock, quantity, price
+//   POST /sell       stock, quantity, price
+//   GET  /portfolio  [version]               (a recent version, default current)
+//   GET  /lots       stock                   (open tax lots, oldest first)
+//   GET  /top-trades
+//   GET  /history    [limit] [from] [to]     (latest rows, default 50; from/to
+//                                            are yyyy-MM-dd, both inclusive)
+//
+// Parameters come from the query string or a form-encoded body; every call
+// but register/login needs "Authorization: Bearer <token>". Responses are JSON.
+//
+// Each request runs on its own virtual thread when the JDK has them (21+),
+// otherwise on a cached pool. Portfolios stay in memory while a user has at
+// least one token; all of a user's trades and reads serialize on that user's
+// journal, so different users never contend. Portfolios are copy-on-write
+// (ConcurrentStockAVLTree): portfolio reads and checkpoints stream an O(1)
+// snapshot without blocking trades, and the last -Dstock.server.versions
+// (default 16) versions stay queryable. Group commits and checkpoints of every
+// journal share one small scheduler.
+//
+// With -Dstock.costBasis=fifo|lifo|hifo, profit is realized against tax lots
+// (TaxLots) rather than the average cost, and /lots lists them.
+//
+//   java stockTrackerProject.TradingServer [port]   (default 8080)
+public class TradingServer {
+    static final String CREDENTIALS_FILE = "username.csv";
+    private static final int DEFAULT_HISTORY_ROWS = 50;
+    private static final int MAX_HISTORY_ROWS = 1000;
+
+    private final HttpServer server;
+    private final ExecutorService requests;
+    private final ScheduledExecutorService journalScheduler;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Session> tokens = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final int topK = Integer.getInteger("stock.topTrades", 10);
+    private final int versions = Integer.getInteger("stock.server.versions", 16);
+
+    // One logged-in user's portfolio, shared by all of that user's tokens.
+    static final class Session {
+        final String username;
+        final String portfolioFile;
+        final String historyFile;
+        final ConcurrentStockAVLTree tree;
+        private final int topK;
+        // Refilled from the history by openSession; reset if that fails.
+        PerformanceHeap performanceHeap;
+        TaxLots lots;  // null for average cost
+        TradeJournal journal;
+        int logins;
+        boolean closed;
+
+        Session(String username, int topK, int versions) {
+            this.username = username;
+            this.tree = new ConcurrentStockAVLTree(versions);
+            this.portfolioFile = username + "_portfolio.csv";
+            this.historyFile = username + TransactionLogger.HISTORY_SUFFIX;
+            this.topK = topK;
+            resetHistory();
+        }
+
+        void resetHistory() {
+            performanceHeap = new PerformanceHeap(topK, false);
+            lots = TaxLots.configured();
+        }
+    }
+
+    // A request that cannot be served; becomes {"error": message}.
+    static final class Failure extends RuntimeException {
+        final int status;
+
+        Failure(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    interface Route {
+        String handle(Map<String, String> params, HttpExchange exchange) throws IOException;
+    }
+
+    public TradingServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.requests = requestExecutor();
+        this.journalScheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "trade-journal-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(requests);
+        route("/register", "POST", this::register);
+        route("/login", "POST", this::login);
+        route("/logout", "POST", this::logout);
+        route("/buy", "POST", this::buy);
+        route("/sell", "POST", this::sell);
+        route("/portfolio", "GET", this::portfolio);
+        route("/lots", "GET", this::lots);
+        route("/top-trades", "GET", this::topTrades);
+        route("/history", "GET", this::history);
+        Metrics.gauge("server.sessions", sessions::size);
+    }
+
+    // Virtual thread per request on JDK 21+, looked up reflectively so the
+    // server still builds and runs on older JDKs.
+    static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "trading-request");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    // Stop accepting requests, then checkpoint and release every open session.
+    public void stop() {
+        server.stop(1);
+        for (Session session : sessions.values()) closeSession(session);
+        requests.shutdown();
+        journalScheduler.shutdown();
+    }
+
+    private void route(String path, String method, Route route) {
+        server.createContext(path, exchange -> {
+            int status = 200;
+            String body;
+            try {
+                if (!exchange.getRequestMethod().equalsIgnoreCase(method))
+                    throw new Failure(405, method + " only");
+                body = route.handle(params(exchange), exchange);
+            } catch (Failure e) {
+                status = e.status;
+                body = "{\"error\":" + quote(e.getMessage()) + "}";
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                status = 500;
+                body = "{\"error\":\"internal error\"}";
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+    }
+
+    // Query string and form-encoded body, merged.
+    private static Map<String, String> params(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parse(exchange.getRequestURI().getRawQuery(), params);
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        if (body.length > 0) parse(new String(body, StandardCharsets.UTF_8), params);
+        return params;
+    }
+
+    private static void parse(String encoded, Map<String, String> params) {
+        if (encoded == null || encoded.isEmpty()) return;
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.trim().isEmpty()) throw new Failure(400, "missing " + name);
+        return value.trim();
+    }
+
+    // User names become file names and stock names CSV fields.
+    private static String userParam(Map<String, String> params) {
+        String user = required(params, "user");
+        if (!user.matches("[A-Za-z0-9_][A-Za-z0-9_.-]*"))
+            throw new Failure(400, "user may only contain letters, digits, '_', '.' and '-'");
+        return user;
+    }
+
+    private static String stockParam(Map<String, String> params) {
+        String stock = required(params, "stock");
+        if (stock.contains(",")) throw new Failure(400, "stock may not contain commas");
+        return stock;
+    }
+
+    private static int positiveInt(Map<String, String> params, String name) {
+        try {
+            int value = Integer.parseInt(required(params, name));
+            if (value > 0) return value;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new Failure(400, name + " must be a positive integer");
+    }
+
+    private static double price(Map<String, String> params) {
+        try {
+            double value = Double.parseDouble(required(params, "price"));
+            if (value >= 0 && !Double.isInfinite(value)) return value;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new Failure(400, "price must be a non-negative number");
+    }
+
+    private static String token(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : "";
+    }
+
+    private Session session(HttpExchange exchange) {
+        Session session = tokens.get(token(exchange));
+        if (session == null) throw new Failure(401, "not logged in");
+        return session;
+    }
+
+    private String register(Map<String, String> params, HttpExchange exchange) throws IOException {
+        String user = userParam(params);
+        String password = required(params, "password");
+        if (password.contains(",")) throw new Failure(400, "password may not contain commas");
+        if (!CredentialStore.forFile(CREDENTIALS_FILE).register(user, password))
+            throw new Failure(409, "user name already exists");
+        return "{\"registered\":" + quote(user) + "}";
+    }
+
+    private String login(Map<String, String> params, HttpExchange exchange) throws IOException {
+        String user = userParam(params);
+        String password = required(params, "password");
+        boolean authenticated;
+        long started = Metrics.LOGIN.start();
+        try {
+            authenticated = CredentialStore.forFile(CREDENTIALS_FILE).authenticate(user, password);
+        } finally {
+            Metrics.LOGIN.stop(started);
+        }
+        if (!authenticated) throw new Failure(401, "invalid user name or password");
+        while (true) {
+            Session session = sessions.computeIfAbsent(user, u -> new Session(u, topK, versions));
+            synchronized (session) {
+                if (session.closed) continue;  // logged out concurrently; take a fresh one
+                if (session.journal == null) openSession(session);
+                session.logins++;
+            }
+            byte[] bytes = new byte[16];
+            random.nextBytes(bytes);
+            StringBuilder token = new StringBuilder(32);
+            for (byte b : bytes) token.append(Character.forDigit((b >> 4) & 0xF, 16))
+                                      .append(Character.forDigit(b & 0xF, 16));
+            tokens.put(token.toString(), session);
+            return "{\"token\":\"" + token + "\"}";
+        }
+    }
+
+    // Load the portfolio, replay the journal and rebuild top trades, as the
+    // dashboard does at login. On failure the journal is closed and the
+    // replayed trades and lots are dropped, so the next login starts clean.
+    private void openSession(Session session) throws IOException {
+        long started = Metrics.LOAD_PORTFOLIO.start();
+        try {
+            StockAVLTree.Rows rows = new StockAVLTree.Rows();
+            long lsn = PortfolioSnapshot.load(session.portfolioFile, rows::add);
+            session.tree.bulkLoad(rows);
+            TradeJournal journal = new TradeJournal(session.portfolioFile, session.tree::writeRows, journalScheduler);
+            try {
+                journal.recover(lsn, (type, stock, qty, price) -> {
+                    if (type == TradeJournal.BUY) session.tree.insert(stock, qty, price);
+                    else session.tree.delete(stock, qty);
+                });
+                TransactionLogger.forFile(session.historyFile);  // creates the history file
+                HistoryReplay.replay(HistoryFile.forHistory(session.historyFile), session.performanceHeap::insert,
+                        session.lots);
+                if (session.lots != null) session.lots.reconcile(session.tree::writeRows);
+            } catch (IOException | RuntimeException e) {
+                journal.close();
+                session.resetHistory();
+                throw e;
+            }
+            session.journal = journal;
+        } finally {
+            Metrics.LOAD_PORTFOLIO.stop(started);
+        }
+    }
+
+    private String logout(Map<String, String> params, HttpExchange exchange) throws IOException {
+        Session session = tokens.remove(token(exchange));
+        if (session == null) throw new Failure(401, "not logged in");
+        boolean last;
+        synchronized (session) {
+            last = --session.logins == 0;
+        }
+        if (last) closeSession(session);
+        return "{\"loggedOut\":" + quote(session.username) + "}";
+    }
+
+    // Final checkpoint and release of a session's files.
+    private void closeSession(Session session) {
+        synchronized (session) {
+            if (session.closed) return;
+            session.closed = true;
+            sessions.remove(session.username, session);
+            try {
+                if (session.journal != null) session.journal.close();
+                TransactionLogger.release(session.historyFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private String buy(Map<String, String> params, HttpExchange exchange) throws IOException {
+        Session session = session(exchange);
+        String stock = stockParam(params);
+        int qty = positiveInt(params, "quantity");
+        double price = price(params);
+        long lot = -1;
+        // Timed from the journal append through the tree update; logging has its own timer.
+        long started = Metrics.BUY_STOCK.start();
+        try {
+            synchronized (session.journal) {
+                session.journal.append(TradeJournal.BUY, stock, qty, price);
+                session.tree.insert(stock, qty, price);
+                if (session.lots != null) lot = session.lots.buy(stock, qty, price);
+            }
+        } finally {
+            Metrics.BUY_STOCK.stop(started);
+        }
+        TransactionLogger.forFile(session.historyFile).log("BUY", stock, qty, price);
+        return "{\"bought\":" + quote(stock) + ",\"quantity\":" + qty + ",\"price\":" + price
+                + (lot >= 0 ? ",\"lot\":" + lot : "") + "}";
+    }
+
+    private String sell(Map<String, String> params, HttpExchange exchange) throws IOException {
+        Session session = session(exchange);
+        String stock = stockParam(params);
+        int qty = positiveInt(params, "quantity");
+        double price = price(params);
+        double profit;
+        synchronized (session.journal) {
+            StockNode node = session.tree.search(stock);
+            if (node == null || node.quantity < qty) throw new Failure(409, "not enough stock to sell");
+            double averageCost = node.averagePrice;
+            // Checked under the lock, so only the trade itself is timed.
+            long started = Metrics.SELL_STOCK.start();
+            try {
+                session.journal.append(TradeJournal.SELL, stock, qty, price);
+                session.tree.delete(stock, qty);
+                if (session.lots != null) {
+                    profit = session.lots.sell(stock, qty, price, averageCost, session.performanceHeap::insert);
+                } else {
+                    profit = (price - averageCost) * qty;
+                    session.performanceHeap.insert(stock, qty, profit);
+                }
+            } finally {
+                Metrics.SELL_STOCK.stop(started);
+            }
+        }
+        TransactionLogger.forFile(session.historyFile).log("SELL", stock, qty, price);
+        return "{\"sold\":" + quote(stock) + ",\"quantity\":" + qty + ",\"price\":" + price
+                + ",\"profit\":" + profit + "}";
+    }
+
+    private String lots(Map<String, String> params, HttpExchange exchange) {
+        Session session = session(exchange);
+        String stock = stockParam(params);
+        if (session.lots == null) throw new Failure(409, "tax lots are off (-Dstock.costBasis)");
+        StringBuilder sb = new StringBuilder("{\"stock\":").append(quote(stock))
+                .append(",\"method\":").append(quote(session.lots.method().name())).append(",\"lots\":[");
+        synchronized (session.journal) {
+            session.lots.lots(stock, (number, shares, lotPrice) -> {
+                if (sb.charAt(sb.length() - 1) != '[') sb.append(',');
+                sb.append("{\"lot\":").append(number).append(",\"quantity\":").append(shares)
+                  .append(",\"price\":").append(lotPrice).append('}');
+            });
+        }
+        return sb.append("]}").toString();
+    }
+
+    // Streams one snapshot; trades carry on meanwhile.
+    private String portfolio(Map<String, String> params, HttpExchange exchange) {
+        Session session = session(exchange);
+        ConcurrentStockAVLTree.Snapshot snapshot = session.tree.snapshot();
+        if (params.containsKey("version")) {
+            try {
+                snapshot = session.tree.snapshotAt(Long.parseLong(params.get("version").trim()));
+            } catch (NumberFormatException e) {
+                snapshot = null;
+            }
+            if (snapshot == null) throw new Failure(404, "version not retained");
+        }
+        StringBuilder sb = new StringBuilder("{\"version\":").append(snapshot.version())
+                .append(",\"positions\":[");
+        ConcurrentStockAVLTree.Cursor cursor = snapshot.cursor().seek("");
+        boolean first = true;
+        for (StockNode node; (node = cursor.next()) != null; first = false) {
+            if (!first) sb.append(',');
+            sb.append("{\"stock\":").append(quote(node.stockName))
+              .append(",\"quantity\":").append(node.quantity)
+              .append(",\"averagePrice\":").append(node.averagePrice).append('}');
+        }
+        sb.append("],\"count\":").append(snapshot.size())
+          .append(",\"shares\":").append(snapshot.totalQuantity())
+          .append(",\"costBasis\":").append(snapshot.totalCost()).append('}');
+        return sb.toString();
+    }
+
+    private String topTrades(Map<String, String> params, HttpExchange exchange) {
+        Session session = session(exchange);
+        StringBuilder sb = new StringBuilder("{\"best\":[");
+        synchronized (session.journal) {
+            TopTrades top = session.performanceHeap.getTopTrades();
+            for (int i = 0; i < top.bestCount(); i++) {
+                if (i > 0) sb.append(',');
+                trade(sb, top.bestName(i), top.bestQuantity(i), top.bestProfit(i));
+            }
+            sb.append("],\"worst\":[");
+            for (int i = 0; i < top.worstCount(); i++) {
+                if (i > 0) sb.append(',');
+                trade(sb, top.worstName(i), top.worstQuantity(i), top.worstProfit(i));
+            }
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static void trade(StringBuilder sb, String stock, int quantity, double profit) {
+        sb.append("{\"stock\":").append(quote(stock))
+          .append(",\"quantity\":").append(quantity)
+          .append(",\"profit\":").append(profit).append('}');
+    }
+
+    // The latest rows, oldest first, straight from the binary history mirror.
+    // With from/to, the latest rows of that date range, found through the
+    // history's sparse timestamp index; total is then the rows in the range.
+    private String history(Map<String, String> params, HttpExchange exchange) throws IOException {
+        Session session = session(exchange);
+        int limit = params.containsKey("limit")
+                ? Math.min(positiveInt(params, "limit"), MAX_HISTORY_ROWS) : DEFAULT_HISTORY_ROWS;
+        HistoryFile history = HistoryFile.forHistory(session.historyFile);
+        if (params.containsKey("from") || params.containsKey("to")) {
+            long from = params.containsKey("from") ? dayStart(params, "from", 0) : Long.MIN_VALUE;
+            long to = params.containsKey("to") ? dayStart(params, "to", 1) : Long.MAX_VALUE;
+            long[] latest = new long[limit];
+            long[] seen = {0};
+            long total = history.between(from, to, k -> latest[(int) (seen[0]++ % limit)] = k);
+            StringBuilder sb = new StringBuilder("{\"total\":").append(total).append(",\"rows\":[");
+            int shown = (int) Math.min(total, limit);
+            for (int i = 0; i < shown; i++)
+                historyRow(sb, history, latest[(int) ((total - shown + i) % limit)]);
+            return sb.append("]}").toString();
+        }
+        long total = history.size();
+        StringBuilder sb = new StringBuilder("{\"total\":").append(total).append(",\"rows\":[");
+        for (long k = history.lastPageStart(limit); k < total; k++) historyRow(sb, history, k);
+        return sb.append("]}").toString();
+    }
+
+    private static void historyRow(StringBuilder sb, HistoryFile history, long k) {
+        if (sb.charAt(sb.length() - 1) != '[') sb.append(',');
+        sb.append("{\"type\":\"").append(history.type(k))
+          .append("\",\"stock\":").append(quote(history.stockName(k)))
+          .append(",\"quantity\":").append(history.quantity(k))
+          .append(",\"price\":").append(history.price(k))
+          .append(",\"date\":\"").append(history.date(k)).append("\"}");
+    }
+
+    // Start of the local day `days` after the yyyy-MM-dd parameter, in epoch nanos.
+    private static long dayStart(Map<String, String> params, String name, int days) {
+        try {
+            return HistoryFile.toEpochNanos(LocalDate.parse(required(params, name)).plusDays(days).atStartOfDay());
+        } catch (DateTimeException e) {
+            throw new Failure(400, name + " must be a date (yyyy-MM-dd)");
+        }
+    }
+
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        TradingServer trading = new TradingServer(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(trading::stop, "trading-server-shutdown"));
+        trading.start();
+        System.out.println("Trading server listening on port " + trading.port());
+    }
+}
@@ -0,0 +1,415 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.*;
+
+// Asynchronous, group-committing writer for "<user>_transaction_history.csv".
+//
+// There is one long-lived logger (and one open FileChannel) per history file.
+// Callers drop records into a fixed ring buffer; a single writer thread drains
+// everything queued since its last pass, formats it as one batch and writes it
+// with one system call. The "yyyy-MM-dd HH:mm:ss" timestamp is formatted once
+// per second rather than once per record.
+//
+// History files ("*_transaction_history.csv") are mirrored batch by batch into
+// their fixed-width binary HistoryFile so paging readers never parse the CSV.
+//
+// The durability mode decides what log() waits for:
+//   FIRE_AND_FORGET - nothing; the record is only queued (lost if the JVM dies)
+//   FLUSH_PER_BATCH - its batch has been written to the file (survives a crash
+//                     of the process, not of the machine)
+//   FSYNC_PER_BATCH - its batch has been forced to disk
+//
+// A batch that fails to write is cut back off the file (so no torn line
+// stays in the CSV) and retried on a reopened channel a few times. If it still
+// fails, only the callers waiting on that batch get the error; later records
+// are written as usual.
+public class TransactionLogger implements Closeable {
+    public enum Durability { FIRE_AND_FORGET, FLUSH_PER_BATCH, FSYNC_PER_BATCH }
+
+    static final String HEADER = "Transaction Type,Stock Name,Quantity,Price,Date\n";
+    static final String HISTORY_SUFFIX = "_transaction_history.csv";
+    private static final int CAPACITY = 8192;  // power of two
+    private static final int WRITE_ATTEMPTS = 3;
+    private static final int FAILED_RANGES = 64;  // failed batches remembered for waiters
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final ConcurrentHashMap<String, TransactionLogger> LOGGERS = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(TransactionLogger::closeAll,
+                "transaction-logger-shutdown"));
+    }
+
+    private final String file;
+    private final Durability durability;
+    private FileChannel channel;  // writer thread only once started; reopened after a failed write
+    private final HistoryFile mirror;
+    private final Thread writer;
+
+    // Ring buffer slots, indexed by sequence & (CAPACITY - 1).
+    private final String[] types = new String[CAPACITY];
+    private final String[] stocks = new String[CAPACITY];
+    private final int[] quantities = new int[CAPACITY];
+    private final double[] prices = new double[CAPACITY];
+    private final long[] timestamps = new long[CAPACITY];
+    private final long[] enqueuedAt = new long[CAPACITY];
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+    private long head;            // next sequence the writer will take
+    private long tail;            // next sequence a caller will fill
+    private long doneSeq;         // everything below this has been written or has failed
+    private final TreeMap<Long, Long> failed = new TreeMap<>();  // failed batches, from -> to
+    private IOException failure;  // the latest failed batch's error
+    private boolean closing;
+
+    // Writer-thread state.
+    private final StringBuilder batch = new StringBuilder(4096);
+    private long committedLength;  // file length after the last batch written
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedDate;
+
+    // Statistics, written by the writer thread only.
+    private volatile long batches;
+    private volatile long records;
+    private volatile long maxBatch;
+    private volatile long totalCommitNanos;
+    private volatile long maxCommitNanos;
+    private volatile long maxQueueDepth;
+
+    private TransactionLogger(String file, Durability durability) throws IOException {
+        this.file = file;
+        this.durability = durability;
+        this.channel = open(file);
+        if (channel.size() == 0)
+            channel.write(ByteBuffer.wrap(HEADER.getBytes(StandardCharsets.UTF_8)));
+        this.committedLength = channel.size();
+        this.mirror = file.endsWith(HISTORY_SUFFIX) ? HistoryFile.forHistory(file) : null;
+        this.writer = new Thread(this::runWriter, "transaction-logger-" + Paths.get(file).getFileName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static FileChannel open(String file) throws IOException {
+        return FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // The logger for a history file, opened on first use. The durability mode
+    // comes from -Dstock.log.durability (default FLUSH_PER_BATCH).
+    public static TransactionLogger forFile(String file) throws IOException {
+        return forFile(file, Durability.valueOf(
+                System.getProperty("stock.log.durability", Durability.FLUSH_PER_BATCH.name())));
+    }
+
+    // The durability mode only applies when this call opens the logger.
+    public static TransactionLogger forFile(String file, Durability durability) throws IOException {
+        TransactionLogger logger = LOGGERS.get(file);
+        if (logger != null) return logger;
+        try {
+            return LOGGERS.computeIfAbsent(file, f -> {
+                try {
+                    return new TransactionLogger(f, durability);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Drain and close the logger for a file, if one is open (e.g. on logout).
+    public static void release(String file) throws IOException {
+        TransactionLogger logger = LOGGERS.get(file);
+        if (logger != null) logger.close();
+    }
+
+    static void closeAll() {
+        for (TransactionLogger logger : LOGGERS.values()) {
+            try {
+                logger.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public String file() {
+        return file;
+    }
+
+    public Durability durability() {
+        return durability;
+    }
+
+    // Queue one history row stamped with the current time.
+    public void log(String type, String stockName, int quantity, double price) throws IOException {
+        long started = Metrics.LOG_TRANSACTION.start();
+        long seq;
+        lock.lock();
+        try {
+            while (tail - head == CAPACITY && !closing) notFull.await();
+            if (closing) throw new IOException("Transaction log is closed: " + file);
+            seq = tail;
+            int slot = (int) (seq & (CAPACITY - 1));
+            types[slot] = type;
+            stocks[slot] = stockName;
+            quantities[slot] = quantity;
+            prices[slot] = price;
+            timestamps[slot] = System.currentTimeMillis();
+            enqueuedAt[slot] = System.nanoTime();
+            tail = seq + 1;
+            notEmpty.signal();
+
+            if (durability != Durability.FIRE_AND_FORGET) awaitWritten(seq, seq);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while logging to " + file);
+        } finally {
+            lock.unlock();
+            Metrics.LOG_TRANSACTION.stop(started);
+        }
+    }
+
+    // Queue every accepted order of a batch back to back, waiting (per the
+    // durability mode) only for the last one, so the writer commits them in as
+    // few batches as the ring allows.
+    public void logAll(OrderBatch batch) throws IOException {
+        long first = -1, last = -1;
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.isRejected(i)) continue;
+                while (tail - head == CAPACITY && !closing) notFull.await();
+                if (closing) throw new IOException("Transaction log is closed: " + file);
+                last = tail;
+                if (first < 0) first = last;
+                int slot = (int) (last & (CAPACITY - 1));
+                types[slot] = batch.type(i) == OrderBatch.BUY ? "BUY" : "SELL";
+                stocks[slot] = batch.stockName(i);
+                quantities[slot] = batch.quantity(i);
+                prices[slot] = batch.price(i);
+                timestamps[slot] = now;
+                enqueuedAt[slot] = System.nanoTime();
+                tail = last + 1;
+                notEmpty.signal();
+            }
+            if (last >= 0 && durability != Durability.FIRE_AND_FORGET) awaitWritten(first, last);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while logging to " + file);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Wait, holding the lock, until records [from, to] are done; throws if
+    // any of them was in a batch that failed.
+    private void awaitWritten(long from, long to) throws IOException, InterruptedException {
+        while (doneSeq <= to) committed.await();
+        Map.Entry<Long, Long> range = failed.floorEntry(to);
+        if (range != null && range.getValue() > from)
+            throw new IOException("Transaction log failed: " + file, failure);
+    }
+
+    private void runWriter() {
+        while (true) {
+            long from, to;
+            lock.lock();
+            try {
+                while (head == tail && !closing) notEmpty.awaitUninterruptibly();
+                if (head == tail) return;
+                from = head;
+                to = tail;
+                if (to - from > maxQueueDepth) maxQueueDepth = to - from;
+            } finally {
+                lock.unlock();
+            }
+
+            // Slots in [from, to) stay untouched until head moves past them.
+            batch.setLength(0);
+            for (long seq = from; seq < to; seq++) {
+                int slot = (int) (seq & (CAPACITY - 1));
+                batch.append(types[slot]).append(',')
+                     .append(stocks[slot]).append(',')
+                     .append(quantities[slot]).append(',')
+                     .append(prices[slot]).append(',')
+                     .append(formatDate(timestamps[slot])).append('\n');
+            }
+            IOException error = writeBatch(batch.toString().getBytes(StandardCharsets.UTF_8));
+            if (error != null) error.printStackTrace();
+            if (error == null && mirror != null) mirrorBatch(from, to);
+
+            long now = System.nanoTime();
+            long latencySum = 0, latencyMax = 0;
+            for (long seq = from; seq < to; seq++) {
+                int slot = (int) (seq & (CAPACITY - 1));
+                long latency = now - enqueuedAt[slot];
+                latencySum += latency;
+                if (latency > latencyMax) latencyMax = latency;
+                types[slot] = null;
+                stocks[slot] = null;
+            }
+            batches++;
+            records += to - from;
+            if (to - from > maxBatch) maxBatch = to - from;
+            totalCommitNanos += latencySum;
+            if (latencyMax > maxCommitNanos) maxCommitNanos = latencyMax;
+
+            lock.lock();
+            try {
+                head = doneSeq = to;
+                if (error != null) {
+                    failed.put(from, to);
+                    if (failed.size() > FAILED_RANGES) failed.pollFirstEntry();
+                    failure = error;
+                }
+                notFull.signalAll();
+                committed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Append one batch. A failed attempt is cut back to the last committed
+    // length and retried on a reopened channel; returns the last error if
+    // every attempt failed, with the file as it was before the batch.
+    private IOException writeBatch(byte[] bytes) {
+        IOException error = null;
+        for (int attempt = 1; attempt <= WRITE_ATTEMPTS; attempt++) {
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) channel.write(buffer);
+                if (durability == Durability.FSYNC_PER_BATCH) channel.force(false);
+                committedLength += bytes.length;
+                return null;
+            } catch (IOException e) {
+                error = e;
+                rollBack();
+            }
+        }
+        return error;
+    }
+
+    // Reopen the file and drop whatever part of a failed batch reached it. If
+    // this fails too, the next write fails and tries again.
+    private void rollBack() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // already unusable
+        }
+        try {
+            channel = open(file);
+            if (channel.size() > committedLength) channel.truncate(committedLength);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // The CSV stays the source of truth: if the mirror falls behind, it catches
+    // up from the CSV the next time it is opened.
+    private void mirrorBatch(long from, long to) {
+        try {
+            for (long seq = from; seq < to; seq++) {
+                int slot = (int) (seq & (CAPACITY - 1));
+                mirror.append(types[slot], stocks[slot], quantities[slot], prices[slot],
+                        timestamps[slot] * 1_000_000L);
+            }
+            mirror.setSourceLength(channel.size());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Re-formats only when the wall-clock second changes.
+    private String formatDate(long millis) {
+        long second = Math.floorDiv(millis, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedDate = DATE_FORMAT.format(LocalDateTime.ofInstant(
+                    Instant.ofEpochSecond(second), ZoneId.systemDefault()));
+        }
+        return cachedDate;
+    }
+
+    // Records queued but not yet written.
+    public long queueDepth() {
+        lock.lock();
+        try {
+            return tail - head;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long maxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public long committedRecords() {
+        return records;
+    }
+
+    public long batchCount() {
+        return batches;
+    }
+
+    public long maxBatchSize() {
+        return maxBatch;
+    }
+
+    // Mean and worst time from log() to the record's batch being committed.
+    public double averageCommitLatencyMicros() {
+        long n = records;
+        return n == 0 ? 0 : totalCommitNanos / 1000.0 / n;
+    }
+
+    public double maxCommitLatencyMicros() {
+        return maxCommitNanos / 1000.0;
+    }
+
+    public String stats() {
+        return String.format("%s [%s] queued=%d maxQueued=%d records=%d batches=%d maxBatch=%d "
+                        + "commitLatency avg=%.1fus max=%.1fus",
+                file, durability, queueDepth(), maxQueueDepth(), committedRecords(), batchCount(),
+                maxBatchSize(), averageCommitLatencyMicros(), maxCommitLatencyMicros());
+    }
+
+    // Write everything still queued, then close the file.
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closing) return;
+            closing = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        LOGGERS.remove(file, this);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (channel.isOpen()) channel.force(false);
+        channel.close();
+    }
+}
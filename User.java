@@ -2,24 +2,50 @@
 
 import java.util.*;
 import java.io.*;
-import java.text.SimpleDateFormat;
+import stockTrackerProject.CredentialStore;
+import stockTrackerProject.DaryTradeHeap;
+import stockTrackerProject.HistoryAnalytics;
+import stockTrackerProject.HistoryFile;
+import stockTrackerProject.HistoryReplay;
+import stockTrackerProject.Metrics;
+import stockTrackerProject.OrderBatch;
+import stockTrackerProject.PortfolioSnapshot;
+import stockTrackerProject.SymbolTable;
+import stockTrackerProject.TaxLots;
+import stockTrackerProject.TopTrades;
+import stockTrackerProject.TradeJournal;
+import stockTrackerProject.TransactionLogger;
 
 // AVL Tree implementation for portfolio management
 class StockAVLTree {
     class Node {
         String stockName;
+        // SymbolTable.sortKey(stockName): descents compare this before the name.
+        long sortKey;
         int quantity;
         double averagePrice;
         int height;
+        // Aggregates over this subtree, kept current by update().
+        int size;
+        long totalQuantity;
+        double totalCost;
+        // This row as displayPortfolio prints it; null until rendered and
+        // again whenever a trade changes the row.
+        String line;
         Node left, right;
         Node(String stockName, int quantity, double averagePrice) {
             this.stockName = stockName;
+            this.sortKey = SymbolTable.sortKey(stockName);
             this.quantity = quantity;
             this.averagePrice = averagePrice;
             this.height = 1;
+            this.size = 1;
+            this.totalQuantity = quantity;
+            this.totalCost = averagePrice * quantity;
         }
     }
     Node root;
+    private final StringBuilder portfolioText = new StringBuilder();
 
     // Utility functions to get height and balance
     int height(Node N) {
@@ -30,14 +56,35 @@ class StockAVLTree {
         return (N == null) ? 0 : height(N.left) - height(N.right);
     }
 
+    // Utility functions to get subtree aggregates
+    int size(Node N) {
+        return (N == null) ? 0 : N.size;
+    }
+
+    long totalQuantity(Node N) {
+        return (N == null) ? 0 : N.totalQuantity;
+    }
+
+    double totalCost(Node N) {
+        return (N == null) ? 0 : N.totalCost;
+    }
+
+    // Recompute height and subtree aggregates from the children.
+    void update(Node N) {
+        N.height = Math.max(height(N.left), height(N.right)) + 1;
+        N.size = size(N.left) + size(N.right) + 1;
+        N.totalQuantity = totalQuantity(N.left) + totalQuantity(N.right) + N.quantity;
+        N.totalCost = totalCost(N.left) + totalCost(N.right) + N.averagePrice * N.quantity;
+    }
+
     // Right rotate subtree rooted with y
     Node rightRotate(Node y) {
         Node x = y.left;
         Node T2 = x.right;
         x.right = y;
         y.left = T2;
-        y.height = Math.max(height(y.left), height(y.right)) + 1;
-        x.height = Math.max(height(x.left), height(x.right)) + 1;
+        update(y);
+        update(x);
         return x;
     }
 
@@ -47,42 +94,56 @@ class StockAVLTree {
         Node T2 = y.left;
         y.left = x;
         x.right = T2;
-        x.height = Math.max(height(x.left), height(x.right)) + 1;
-        y.height = Math.max(height(y.left), height(y.right)) + 1;
+        update(x);
+        update(y);
         return y;
     }
 
+    // Order of a name (with its sort key) against a node: the packed prefixes
+    // settle almost every compare, the names only break a tie.
+    static int compare(String stockName, long sortKey, Node node) {
+        if (sortKey != node.sortKey)
+            return (sortKey < node.sortKey) ? -1 : 1;
+        return stockName.compareTo(node.stockName);
+    }
+
     // Insert (or update) a stock in the AVL tree.
     Node insert(Node node, String stockName, int quantity, double price) {
+        return insert(node, stockName, SymbolTable.sortKey(stockName), quantity, price);
+    }
+
+    Node insert(Node node, String stockName, long key, int quantity, double price) {
         if (node == null)
             return new Node(stockName, quantity, price);
 
-        int cmp = stockName.compareTo(node.stockName);
+        int cmp = compare(stockName, key, node);
         if (cmp < 0) {
-            node.left = insert(node.left, stockName, quantity, price);
+            node.left = insert(node.left, stockName, key, quantity, price);
         } else if (cmp > 0) {
-            node.right = insert(node.right, stockName, quantity, price);
+            node.right = insert(node.right, stockName, key, quantity, price);
         } else {
             // Stock exists; update quantity and recalc average price.
             double totalCost = node.averagePrice * node.quantity + price * quantity;
             node.quantity += quantity;
             node.averagePrice = totalCost / node.quantity;
+            node.line = null;
+            update(node);
             return node;
         }
 
-        node.height = 1 + Math.max(height(node.left), height(node.right));
+        update(node);
         int balance = getBalance(node);
 
         // Balancing the tree (LL, RR, LR, RL cases)
-        if (balance > 1 && stockName.compareTo(node.left.stockName) < 0)
+        if (balance > 1 && compare(stockName, key, node.left) < 0)
             return rightRotate(node);
-        if (balance < -1 && stockName.compareTo(node.right.stockName) > 0)
+        if (balance < -1 && compare(stockName, key, node.right) > 0)
             return leftRotate(node);
-        if (balance > 1 && stockName.compareTo(node.left.stockName) > 0) {
+        if (balance > 1 && compare(stockName, key, node.left) > 0) {
             node.left = leftRotate(node.left);
             return rightRotate(node);
         }
-        if (balance < -1 && stockName.compareTo(node.right.stockName) < 0) {
+        if (balance < -1 && compare(stockName, key, node.right) < 0) {
             node.right = rightRotate(node.right);
             return leftRotate(node);
         }
@@ -91,18 +152,24 @@ class StockAVLTree {
 
     // Delete (or reduce quantity of) a stock when selling.
     Node delete(Node node, String stockName, int quantity) {
+        return delete(node, stockName, SymbolTable.sortKey(stockName), quantity);
+    }
+
+    Node delete(Node node, String stockName, long key, int quantity) {
         if (node == null)
             return node;
 
-        int cmp = stockName.compareTo(node.stockName);
+        int cmp = compare(stockName, key, node);
         if (cmp < 0)
-            node.left = delete(node.left, stockName, quantity);
+            node.left = delete(node.left, stockName, key, quantity);
         else if (cmp > 0)
-            node.right = delete(node.right, stockName, quantity);
+            node.right = delete(node.right, stockName, key, quantity);
         else {
             // Found the stock
             if (node.quantity > quantity) {
                 node.quantity -= quantity;
+                node.line = null;
+                update(node);
                 return node;
             } else if (node.quantity == quantity) {
                 // Remove node
@@ -112,9 +179,11 @@ class StockAVLTree {
                 } else {
                     Node temp = minValueNode(node.right);
                     node.stockName = temp.stockName;
+                    node.sortKey = temp.sortKey;
                     node.quantity = temp.quantity;
                     node.averagePrice = temp.averagePrice;
-                    node.right = delete(node.right, temp.stockName, temp.quantity);
+                    node.line = temp.line;
+                    node.right = delete(node.right, temp.stockName, temp.sortKey, temp.quantity);
                 }
             } else {
                 System.out.println("Not enough stock to sell.");
@@ -124,7 +193,7 @@ class StockAVLTree {
         if (node == null)
             return node;
 
-        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        update(node);
         int balance = getBalance(node);
 
         // Rebalance the tree if needed.
@@ -152,20 +221,170 @@ class StockAVLTree {
 
     // Search for a stock node by name.
     Node search(Node node, String stockName) {
-        if (node == null || node.stockName.equals(stockName))
-            return node;
-        int cmp = stockName.compareTo(node.stockName);
-        return (cmp < 0) ? search(node.left, stockName) : search(node.right, stockName);
+        long key = SymbolTable.sortKey(stockName);
+        while (node != null) {
+            int cmp = compare(stockName, key, node);
+            if (cmp == 0)
+                return node;
+            node = (cmp < 0) ? node.left : node.right;
+        }
+        return null;
     }
 
-    // Inorder traversal to display portfolio.
-    void inOrder(Node node) {
+    // Inorder traversal to display portfolio. Only rows changed since the
+    // last display are formatted again; the rest reuse their cached line.
+    void inOrder(Node node, StringBuilder sb) {
         if (node != null) {
-            inOrder(node.left);
-            System.out.println("Stock: " + node.stockName + " | Quantity: " + node.quantity +
-                               " | Avg Price: " + node.averagePrice);
-            inOrder(node.right);
+            inOrder(node.left, sb);
+            if (node.line == null)
+                node.line = "Stock: " + node.stockName + " | Quantity: " + node.quantity +
+                            " | Avg Price: " + node.averagePrice + "\n";
+            sb.append(node.line);
+            inOrder(node.right, sb);
+        }
+    }
+
+    // Rows gathered by a loader for bulkLoad.
+    static class Rows {
+        String[] names = new String[16];
+        int[] quantities = new int[16];
+        double[] prices = new double[16];
+        int count;
+
+        void add(String name, int quantity, double price) {
+            if (count == names.length) {
+                names = Arrays.copyOf(names, count * 2);
+                quantities = Arrays.copyOf(quantities, count * 2);
+                prices = Arrays.copyOf(prices, count * 2);
+            }
+            names[count] = name;
+            quantities[count] = quantity;
+            prices[count] = price;
+            count++;
+        }
+    }
+
+    // Replace the tree with `rows` in O(n): input already sorted by stock name
+    // (the order exportToCSV writes) becomes a perfectly balanced tree with no
+    // compares against the tree and no rotations; unsorted input is sorted
+    // first. Repeated names are merged like repeated buys. Reuses the arrays.
+    public void bulkLoad(Rows rows) {
+        int n = rows.count;
+        String[] names = rows.names;
+        int[] quantities = rows.quantities;
+        double[] prices = rows.prices;
+        boolean sorted = true;
+        for (int i = 1; i < n && sorted; i++)
+            sorted = names[i - 1].compareTo(names[i]) <= 0;
+        if (!sorted) {
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> rows.names[a].compareTo(rows.names[b]));
+            names = new String[n];
+            quantities = new int[n];
+            prices = new double[n];
+            for (int i = 0; i < n; i++) {
+                names[i] = rows.names[order[i]];
+                quantities[i] = rows.quantities[order[i]];
+                prices[i] = rows.prices[order[i]];
+            }
+        }
+
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (m > 0 && names[m - 1].equals(names[i])) {
+                double totalCost = prices[m - 1] * quantities[m - 1] + prices[i] * quantities[i];
+                quantities[m - 1] += quantities[i];
+                prices[m - 1] = totalCost / quantities[m - 1];
+            } else {
+                names[m] = names[i];
+                quantities[m] = quantities[i];
+                prices[m] = prices[i];
+                m++;
+            }
+        }
+        root = build(names, quantities, prices, 0, m - 1);
+    }
+
+    // Balanced subtree over the sorted slice [lo, hi].
+    Node build(String[] names, int[] quantities, double[] prices, int lo, int hi) {
+        if (lo > hi)
+            return null;
+        int mid = (lo + hi) >>> 1;
+        Node node = new Node(names[mid], quantities[mid], prices[mid]);
+        node.left = build(names, quantities, prices, lo, mid - 1);
+        node.right = build(names, quantities, prices, mid + 1, hi);
+        update(node);
+        return node;
+    }
+
+    // Apply a batch of orders (sorted by name) in one merge against the tree's
+    // in-order rows and rebuild it balanced: O(n + m) rather than m descents.
+    // Each stock's orders run in file order with the same arithmetic as single
+    // trades; a SELL for more than is held is rejected in the batch. Returns
+    // the new root and leaves this tree untouched, so callers can journal the
+    // accepted orders before installing it.
+    public Node mergeBatch(OrderBatch batch) {
+        batch.beginApply();
+        int n = size(root), m = batch.size();
+        String[] names = new String[n + m];
+        int[] quantities = new int[n + m];
+        double[] prices = new double[n + m];
+        // Tree rows sit at [m, n + m); merged rows are written from 0 and
+        // never overtake the unread tree rows.
+        flatten(root, names, quantities, prices, m);
+        int i = m, k = 0, j = 0;
+        while (i < n + m || j < m) {
+            if (j == m || (i < n + m && names[i].compareTo(batch.stockName(j)) < 0)) {
+                names[k] = names[i];
+                quantities[k] = quantities[i];
+                prices[k++] = prices[i++];
+                continue;
+            }
+            String stock = batch.stockName(j);
+            int held = 0;
+            double averagePrice = 0;
+            if (i < n + m && names[i].equals(stock)) {
+                held = quantities[i];
+                averagePrice = prices[i++];
+            }
+            for (; j < m && batch.stockName(j).equals(stock); j++) {
+                int qty = batch.quantity(j);
+                double price = batch.price(j);
+                if (batch.type(j) == OrderBatch.BUY) {
+                    double totalCost = averagePrice * held + price * qty;
+                    held += qty;
+                    averagePrice = totalCost / held;
+                } else if (qty > held) {
+                    batch.reject(j, held);
+                } else {
+                    batch.realize(j, (price - averagePrice) * qty);
+                    held -= qty;
+                }
+            }
+            if (held > 0) {
+                names[k] = stock;
+                quantities[k] = held;
+                prices[k++] = averagePrice;
+            }
         }
+        return build(names, quantities, prices, 0, k - 1);
+    }
+
+    public void applyBatch(OrderBatch batch) {
+        root = mergeBatch(batch);
+    }
+
+    // In-order rows of the subtree into the arrays from index `at`; returns
+    // the next free index.
+    private int flatten(Node node, String[] names, int[] quantities, double[] prices, int at) {
+        if (node == null)
+            return at;
+        at = flatten(node.left, names, quantities, prices, at);
+        names[at] = node.stockName;
+        quantities[at] = node.quantity;
+        prices[at++] = node.averagePrice;
+        return flatten(node.right, names, quantities, prices, at);
     }
 
     // Public methods
@@ -181,19 +400,216 @@ class StockAVLTree {
         return search(root, stockName);
     }
 
+    // Positions, shares and cost basis of a set of holdings.
+    static class Valuation {
+        int positions;
+        long quantity;
+        double cost;
+
+        void addPosition(Node node) {
+            positions++;
+            quantity += node.quantity;
+            cost += node.averagePrice * node.quantity;
+        }
+
+        void addSubtree(Node node) {
+            if (node == null)
+                return;
+            positions += node.size;
+            quantity += node.totalQuantity;
+            cost += node.totalCost;
+        }
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public long totalQuantity() {
+        return totalQuantity(root);
+    }
+
+    public double totalCost() {
+        return totalCost(root);
+    }
+
+    // Holdings named from `from` to `to`, both inclusive, in O(log n): descend
+    // to the node where the two bounds split, then take whole subtrees along
+    // each boundary path.
+    public Valuation valueRange(String from, String to) {
+        Valuation v = new Valuation();
+        long fromKey = SymbolTable.sortKey(from), toKey = SymbolTable.sortKey(to);
+        Node node = root;
+        while (node != null) {
+            if (compare(from, fromKey, node) > 0)
+                node = node.right;
+            else if (compare(to, toKey, node) < 0)
+                node = node.left;
+            else
+                break;
+        }
+        if (node == null)
+            return v;
+        v.addPosition(node);
+        for (Node n = node.left; n != null; ) {
+            if (compare(from, fromKey, n) > 0) {
+                n = n.right;
+            } else {
+                v.addPosition(n);
+                v.addSubtree(n.right);
+                n = n.left;
+            }
+        }
+        for (Node n = node.right; n != null; ) {
+            if (compare(to, toKey, n) < 0) {
+                n = n.left;
+            } else {
+                v.addPosition(n);
+                v.addSubtree(n.left);
+                n = n.right;
+            }
+        }
+        return v;
+    }
+
+    // Number of holdings whose name sorts before stockName (held or not).
+    public int rank(String stockName) {
+        int rank = 0;
+        long key = SymbolTable.sortKey(stockName);
+        Node node = root;
+        while (node != null) {
+            if (compare(stockName, key, node) <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    // The k-th holding (0-based) in name order, or null when k is out of range.
+    public Node select(int k) {
+        if (k < 0 || k >= size(root))
+            return null;
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k == leftSize) {
+                return node;
+            } else {
+                k -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    // Explicit-stack cursor over holdings in name order. next() hands back the
+    // tree's own nodes, so a scan allocates nothing per element; one cursor
+    // can be re-seeked any number of times. Any insert or delete invalidates
+    // a scan in progress.
+    class Cursor {
+        private Node[] stack = new Node[32];
+        private int depth;
+        private String to;      // inclusive upper bound, or null
+        private long toKey;
+        private String prefix;  // every name must start with this, or null
+
+        // Start at the first holding whose name is >= key; no upper bound.
+        public Cursor seek(String key) {
+            depth = 0;
+            to = null;
+            prefix = null;
+            long sortKey = SymbolTable.sortKey(key);
+            Node node = root;
+            while (node != null) {
+                if (compare(key, sortKey, node) <= 0) {
+                    push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            return this;
+        }
+
+        // Holdings named from `from` to `to`, both inclusive.
+        public Cursor range(String from, String to) {
+            seek(from);
+            this.to = to;
+            this.toKey = SymbolTable.sortKey(to);
+            return this;
+        }
+
+        // Holdings whose name starts with `prefix`.
+        public Cursor prefix(String prefix) {
+            seek(prefix);
+            this.prefix = prefix;
+            return this;
+        }
+
+        // The next holding in name order, or null once the scan is done.
+        public Node next() {
+            if (depth == 0)
+                return null;
+            Node node = stack[--depth];
+            if ((to != null && compare(to, toKey, node) < 0)
+                    || (prefix != null && !node.stockName.startsWith(prefix))) {
+                depth = 0;
+                return null;
+            }
+            for (Node n = node.right; n != null; n = n.left)
+                push(n);
+            return node;
+        }
+
+        private void push(Node node) {
+            if (depth == stack.length)
+                stack = Arrays.copyOf(stack, depth * 2);
+            stack[depth++] = node;
+        }
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    // Printed as one block rather than a println per row.
     public void displayPortfolio() {
-        System.out.println("\nYour Portfolio:");
-        inOrder(root);
+        StringBuilder sb = portfolioText;
+        sb.setLength(0);
+        sb.append("\nYour Portfolio:\n");
+        inOrder(root, sb);
+        sb.append("Positions: ").append(size()).append(" | Shares: ").append(totalQuantity())
+          .append(" | Cost Basis: ").append(totalCost()).append('\n');
+        System.out.print(sb);
     }
 
     // Export current portfolio to a CSV file.
     public void exportToCSV(String filename) {
+        long started = Metrics.EXPORT_CSV.start();
         try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
             writer.println("Stock Name,Quantity,Average Price");
             exportToCSV(root, writer);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        Metrics.EXPORT_CSV.stop(started);
+    }
+
+    // Hand the portfolio rows to the sink in sorted order; used for checkpoints.
+    public void writeRows(PortfolioSnapshot.RowSink sink) {
+        writeRows(root, sink);
+    }
+
+    private void writeRows(Node node, PortfolioSnapshot.RowSink sink) {
+        if (node != null) {
+            writeRows(node.left, sink);
+            sink.row(node.stockName, node.quantity, node.averagePrice);
+            writeRows(node.right, sink);
+        }
     }
 
     private void exportToCSV(Node node, PrintWriter writer) {
@@ -219,62 +635,67 @@ class PerformanceHeap {
         }
     }
 
-    List<TradePerformance> heap;
+    // Primitive 4-ary max-heap; only filled when the full history is kept.
+    DaryTradeHeap heap;
+    // Ranked leaderboard of the K best and K worst trades.
+    TopTrades topTrades;
+    boolean keepHistory;
 
     public PerformanceHeap() {
-        heap = new ArrayList<>();
+        this(10, true);
     }
 
-    // Helper functions to get parent/children indices.
-    private int parent(int i) { return (i - 1) / 2; }
-    private int leftChild(int i) { return 2 * i + 1; }
-    private int rightChild(int i) { return 2 * i + 2; }
+    // With keepHistory false only the top-K leaderboard is kept (no extractMax).
+    public PerformanceHeap(int topK, boolean keepHistory) {
+        heap = new DaryTradeHeap();
+        topTrades = new TopTrades(topK);
+        this.keepHistory = keepHistory;
+    }
 
     // Insert a new trade performance record.
+    // The ticker is interned once; both boards record its SymbolTable id.
     public void insert(String stockName, int quantity, double profit) {
-        TradePerformance tp = new TradePerformance(stockName, quantity, profit);
-        heap.add(tp);
-        int index = heap.size() - 1;
-        // Bubble up to maintain max heap (largest profit on top)
-        while (index != 0 && heap.get(parent(index)).profit < heap.get(index).profit) {
-            Collections.swap(heap, index, parent(index));
-            index = parent(index);
+        int symbolId = SymbolTable.global().id(stockName);
+        topTrades.record(symbolId, quantity, profit);
+        if (keepHistory)
+            heap.insert(symbolId, quantity, profit);
+    }
+
+    // Trades recorded: all of them, or the count seen by the top-K boards.
+    public int size() {
+        return keepHistory ? heap.size() : (int) topTrades.recorded();
+    }
+
+    // Bulk-load historical trades; the heap is built in O(n) rather than by n inserts.
+    public void insertAll(String[] stockNames, int[] quantities, double[] profits, int count) {
+        int[] symbolIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            symbolIds[i] = SymbolTable.global().id(stockNames[i]);
+            topTrades.record(symbolIds[i], quantities[i], profits[i]);
         }
+        if (keepHistory)
+            heap.buildHeap(symbolIds, quantities, profits, count);
     }
 
     // Extract the trade with the maximum profit.
     public TradePerformance extractMax() {
-        if (heap.size() == 0) return null;
-        TradePerformance max = heap.get(0);
-        TradePerformance last = heap.remove(heap.size() - 1);
-        if (heap.size() > 0) {
-            heap.set(0, last);
-            heapify(0);
-        }
+        if (heap.isEmpty()) return null;
+        TradePerformance max = new TradePerformance(heap.maxStockName(), heap.maxQuantity(), heap.maxProfit());
+        heap.removeMax();
         return max;
     }
 
-    // Heapify from a given index.
-    private void heapify(int i) {
-        int left = leftChild(i);
-        int right = rightChild(i);
-        int largest = i;
-        if (left < heap.size() && heap.get(left).profit > heap.get(largest).profit)
-            largest = left;
-        if (right < heap.size() && heap.get(right).profit > heap.get(largest).profit)
-            largest = right;
-        if (largest != i) {
-            Collections.swap(heap, i, largest);
-            heapify(largest);
-        }
-    }
-
-    // Display all trade performance records.
+    // Display the leaderboard, ranked, from the bounded top-K boards.
     public void displayHeap() {
         System.out.println("\nTrading Performance (Top trades):");
-        for (TradePerformance tp : heap) {
-            System.out.println("Stock: " + tp.stockName + " | Quantity: " + tp.quantity +
-                               " | Profit: " + tp.profit);
+        for (int i = 0; i < topTrades.bestCount(); i++) {
+            System.out.println("Stock: " + topTrades.bestName(i) + " | Quantity: " + topTrades.bestQuantity(i) +
+                               " | Profit: " + topTrades.bestProfit(i));
+        }
+        System.out.println("\nTrading Performance (Worst trades):");
+        for (int i = 0; i < topTrades.worstCount(); i++) {
+            System.out.println("Stock: " + topTrades.worstName(i) + " | Quantity: " + topTrades.worstQuantity(i) +
+                               " | Profit: " + topTrades.worstProfit(i));
         }
     }
 }
@@ -284,10 +705,15 @@ public class User {
     String userFile = "";
     String portfolioFile = "";
     String userFilename = "username.csv";
+    static final int HISTORY_PAGE_SIZE = 50;
 
     // Instantiate the AVL tree and performance heap.
     StockAVLTree portfolioTree = new StockAVLTree();
-    PerformanceHeap performanceHeap = new PerformanceHeap();
+    PerformanceHeap performanceHeap = new PerformanceHeap(Integer.getInteger("stock.topTrades", 10), false);
+    // Write-ahead log of trades; the portfolio CSV is only rewritten at checkpoints.
+    TradeJournal journal;
+    // Tax lots under -Dstock.costBasis=fifo|lifo|hifo, else null (average cost).
+    TaxLots lots;
 
     // Registration method (creates a user and an empty portfolio file)
     public void register() {
@@ -296,41 +722,35 @@ public class User {
             System.out.println("Enter user name: ");
             String name = in.nextLine();
 
-            try (BufferedReader br = new BufferedReader(new FileReader(userFilename))) {
-                String line;
-                boolean userExists = false;
-                while ((line = br.readLine()) != null) {
-                    String[] values = line.split(",");
-                    if (values[0].equals(name)) {
-                        System.out.println("User name already exists. Please enter a different user name.");
-                        userExists = true;
-                        break;
-                    }
+            try {
+                CredentialStore credentials = CredentialStore.forFile(userFilename);
+                if (credentials.exists(name)) {
+                    System.out.println("User name already exists. Please enter a different user name.");
+                    continue;
                 }
-                if (!userExists) {
-                    System.out.println("Enter password: ");
-                    String password = in.nextLine();
-
-                    try (FileWriter writer = new FileWriter(userFilename, true)) {
-                        writer.append(name).append(",").append(password).append("\n");
-                        writer.flush();
-                        System.out.println("User registered successfully!");
-                        n = 1;
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-
-                    // Create a portfolio file for the user
-                    portfolioFile = name + "_portfolio.csv";
-                    try (FileWriter writer = new FileWriter(portfolioFile)) {
-                        writer.append("Stock Name,Quantity,Average Price\n");
-                        writer.flush();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
+                System.out.println("Enter password: ");
+                String password = in.nextLine();
+
+                // The store re-checks the name under a file lock, so a concurrent
+                // registration of the same name cannot slip in between.
+                if (!credentials.register(name, password)) {
+                    System.out.println("User name already exists. Please enter a different user name.");
+                    continue;
+                }
+                System.out.println("User registered successfully!");
+                n = 1;
+
+                // Create a portfolio file for the user
+                portfolioFile = name + "_portfolio.csv";
+                try (FileWriter writer = new FileWriter(portfolioFile)) {
+                    writer.append("Stock Name,Quantity,Average Price\n");
+                    writer.flush();
+                } catch (IOException e) {
+                    e.printStackTrace();
                 }
             } catch (IOException e) {
                 e.printStackTrace();
+                return;
             }
         }
     }
@@ -351,17 +771,11 @@ public class User {
     }
 }
 
-// Log transaction to user-specific CSV file
+// Log transaction to user-specific CSV file through its long-lived group-commit logger.
     public void logTransaction(String username, String type, String stockName, int quantity, double price) {
     String transactionFile = username + "_transaction_history.csv";
-    try (FileWriter writer = new FileWriter(transactionFile, true)) {
-        String date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-        writer.append(type).append(",")
-              .append(stockName).append(",")
-              .append(String.valueOf(quantity)).append(",")
-              .append(String.valueOf(price)).append(",")
-              .append(date).append("\n");
-        writer.flush();
+    try {
+        TransactionLogger.forFile(transactionFile).log(type, stockName, quantity, price);
     } catch (IOException e) {
         e.printStackTrace();
     }
@@ -375,26 +789,31 @@ public class User {
         String password = in.nextLine();
         boolean loggedIn = false;
     
-        try (BufferedReader br = new BufferedReader(new FileReader(userFilename))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(",");
-                if (values[0].equals(name) && values[1].equals(password)) {
-                    System.out.println("Login successful!");
-                    loggedIn = true;
-                    break;
-                }
+        long started = Metrics.LOGIN.start();
+        try {
+            if (CredentialStore.forFile(userFilename).authenticate(name, password)) {
+                System.out.println("Login successful!");
+                loggedIn = true;
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
+        Metrics.LOGIN.stop(started);
     
         if (loggedIn) {
             // Set user-specific file names.
             userFile = name + ".csv"; // Can be used for transaction history if needed.
             portfolioFile = name + "_portfolio.csv";
             initializeTransactionLog(name); // Initialize user-specific transaction log
-            loadPortfolio();
+            try {
+                loadPortfolio();
+            } catch (IOException e) {
+                // Trades could not be made durable without the journal.
+                System.out.println("Could not open the trade journal: " + e.getMessage());
+                System.out.println("Login failed. Please try again.");
+                return;
+            }
+            replayHistory(name);
             manageStocks();
         } else {
             System.out.println("Invalid user name or password. Please try again.");
@@ -402,35 +821,59 @@ public class User {
     }
     
 
-    // Load portfolio from CSV file into the AVL tree.
-    public void loadPortfolio() {
-        File file = new File(portfolioFile);
-        if (!file.exists()) {
-            try (FileWriter writer = new FileWriter(portfolioFile)) {
-                writer.append("Stock Name,Quantity,Average Price\n");
-                writer.flush();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        } else {
-            try (BufferedReader br = new BufferedReader(new FileReader(portfolioFile))) {
-                String header = br.readLine(); // Skip header
-                String line;
-                while ((line = br.readLine()) != null) {
-                    String[] values = line.split(",");
-                    if (values.length >= 3) {
-                        String stockName = values[0];
-                        int quantity = Integer.parseInt(values[1]);
-                        double avgPrice = Double.parseDouble(values[2]);
-                        portfolioTree.insert(stockName, quantity, avgPrice);
-                    }
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    // Load the portfolio into the AVL tree from its binary snapshot, or from
+    // the CSV if no checkpoint has written a snapshot yet.
+    public void loadPortfolio() throws IOException {
+        long started = Metrics.LOAD_PORTFOLIO.start();
+        try {
+            StockAVLTree.Rows rows = new StockAVLTree.Rows();
+            long lsn = PortfolioSnapshot.load(portfolioFile, rows::add);
+            // Rows come back in sorted order: build in O(n).
+            portfolioTree.bulkLoad(rows);
+            openJournal(lsn);
+        } finally {
+            Metrics.LOAD_PORTFOLIO.stop(started);
+        }
+        Metrics.gauge("portfolio.size", () -> portfolioTree.size());
+        Metrics.gauge("portfolio.height", () -> portfolioTree.height(portfolioTree.root));
+        Metrics.gauge("trades.heapSize", () -> performanceHeap.size());
+    }
+
+    // Rebuild trading performance (and the tax lots) by streaming the
+    // transaction history once.
+    private void replayHistory(String username) {
+        performanceHeap = new PerformanceHeap(Integer.getInteger("stock.topTrades", 10), false);
+        lots = TaxLots.configured();
+        try {
+            HistoryFile history = HistoryFile.forHistory(username + "_transaction_history.csv");
+            HistoryReplay.replay(history, performanceHeap::insert, lots);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+        if (lots != null)
+            lots.reconcile(portfolioTree::writeRows);
     }
-    // Display transaction history for the logged-in user.
+
+    // Open the trade journal and replay trades logged since the last checkpoint.
+    // On failure no journal is left open and `journal` is not set.
+    private void openJournal(long lsn) throws IOException {
+        TradeJournal opened = new TradeJournal(portfolioFile, portfolioTree::writeRows);
+        try {
+            opened.recover(lsn, (type, stockName, quantity, price) -> {
+                if (type == TradeJournal.BUY)
+                    portfolioTree.insert(stockName, quantity, price);
+                else
+                    portfolioTree.delete(stockName, quantity);
+            });
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+        journal = opened;
+    }
+
+    // Display the latest page of transaction history for the logged-in user,
+    // read straight from the fixed-width binary mirror of the CSV.
 public void displayTransactionHistory(String username) {
     String transactionFile = username + "_transaction_history.csv";
     File file = new File(transactionFile);
@@ -438,13 +881,16 @@ public void displayTransactionHistory(String username) {
         System.out.println("No transaction history found for user: " + username);
         return;
     }
-    try (BufferedReader br = new BufferedReader(new FileReader(transactionFile))) {
-        String header = br.readLine(); // Read header
-        String line;
-        System.out.println("\nTransaction History:");
-        System.out.println(header);
-        while ((line = br.readLine()) != null) {
-            System.out.println(line);
+    try {
+        HistoryFile history = HistoryFile.forHistory(transactionFile);
+        long total = history.size();
+        long start = history.lastPageStart(HISTORY_PAGE_SIZE);
+        System.out.println("\nTransaction History (last " + (total - start) + " of " + total + "):");
+        System.out.println("Transaction Type,Stock Name,Quantity,Price,Date");
+        StringBuilder sb = new StringBuilder();
+        for (long k = start; k < total; k++) {
+            sb.setLength(0);
+            System.out.println(history.formatRow(k, sb));
         }
     } catch (IOException e) {
         e.printStackTrace();
@@ -463,7 +909,9 @@ public void displayTransactionHistory(String username) {
         System.out.println("3. Sell Stock");
         System.out.println("4. View Trading Performance");
         System.out.println("5. View Transaction History"); // New option
-        System.out.println("6. Logout");
+        System.out.println("6. Import Orders");
+        System.out.println("7. View Trading Analytics");
+        System.out.println("8. Logout");
         System.out.print("Enter choice: ");
         choice = in.nextInt();
         in.nextLine(); // consume newline
@@ -485,19 +933,29 @@ public void displayTransactionHistory(String username) {
                 displayTransactionHistory(userFile.split("\\.")[0]);
                 break;
             case 6:
+                importOrders();
+                break;
+            case 7:
+                displayAnalytics(userFile.split("\\.")[0]);
+                break;
+            case 8:
                 System.out.println("Logging out...");
-                // Save the portfolio before logging out.
-                portfolioTree.exportToCSV(portfolioFile);
+                // Checkpoint the portfolio before logging out.
+                try {
+                    journal.close();
+                    TransactionLogger.release(userFile.split("\\.")[0] + "_transaction_history.csv");
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
                 break;
             default:
                 System.out.println("Invalid choice. Please try again.");
         }
-    } while(choice != 6);
+    } while(choice != 8);
 }
 
 
-    // Buy stock: update the AVL tree and then export the portfolio.
-    // Buy stock: update the AVL tree and then export the portfolio.
+    // Buy stock: journal the trade, then update the AVL tree.
 public void buyStock() {
     System.out.print("Enter stock name: ");
     String stockName = in.nextLine();
@@ -507,9 +965,22 @@ public void buyStock() {
     double price = in.nextDouble();
     in.nextLine(); // consume newline
 
-    portfolioTree.insert(stockName, quantity, price);
+    // Timed from the journal append through the tree update; logging has its own timer.
+    long started = Metrics.BUY_STOCK.start();
+    try {
+        synchronized (journal) {
+            journal.append(TradeJournal.BUY, stockName, quantity, price);
+            portfolioTree.insert(stockName, quantity, price);
+            if (lots != null)
+                lots.buy(stockName, quantity, price);
+        }
+    } catch (IOException e) {
+        e.printStackTrace();
+        return;
+    } finally {
+        Metrics.BUY_STOCK.stop(started);
+    }
     System.out.println("Stock purchased and portfolio updated successfully!");
-    portfolioTree.exportToCSV(portfolioFile);
 
     // Log transaction
     logTransaction(userFile.split("\\.")[0], "BUY", stockName, quantity, price);
@@ -535,20 +1006,99 @@ public void sellStock() {
         return;
     }
 
-    // Compute trade profit: (sell price - average price) * quantity sold.
-    double profit = (sellPrice - node.averagePrice) * sellQuantity;
-    portfolioTree.delete(stockName, sellQuantity);
+    // Compute trade profit: (sell price - average price) * quantity sold,
+    // or against the tax lots the sale consumes.
+    double averagePrice = node.averagePrice;
+    double profit = (sellPrice - averagePrice) * sellQuantity;
+    // Timed from the journal append through the heap update; logging has its own timer.
+    long started = Metrics.SELL_STOCK.start();
+    try {
+        synchronized (journal) {
+            journal.append(TradeJournal.SELL, stockName, sellQuantity, sellPrice);
+            portfolioTree.delete(stockName, sellQuantity);
+            // Record performance in the heap (with tax lots, one trade per lot sold).
+            if (lots != null)
+                lots.sell(stockName, sellQuantity, sellPrice, averagePrice, performanceHeap::insert);
+            else
+                performanceHeap.insert(stockName, sellQuantity, profit);
+        }
+    } catch (IOException e) {
+        e.printStackTrace();
+        return;
+    } finally {
+        Metrics.SELL_STOCK.stop(started);
+    }
     System.out.println("Stock sold successfully!");
 
-    // Record performance in the heap.
-    performanceHeap.insert(stockName, sellQuantity, profit);
-    portfolioTree.exportToCSV(portfolioFile);
-
     // Log transaction
     logTransaction(userFile.split("\\.")[0], "SELL", stockName, sellQuantity, sellPrice);
 }
 
 
+// Volume, VWAP, buy/sell counts, realized P&L and daily/hourly activity over
+// the user's transaction history, aggregated in parallel.
+public void displayAnalytics(String username) {
+    String transactionFile = username + "_transaction_history.csv";
+    if (!new File(transactionFile).exists()) {
+        System.out.println("No transaction history found for user: " + username);
+        return;
+    }
+    try {
+        HistoryAnalytics.Report report = HistoryAnalytics.analyze(HistoryFile.forHistory(transactionFile));
+        System.out.print(report.format(20));
+    } catch (IOException e) {
+        e.printStackTrace();
+    }
+}
+
+// The same analytics over every user's history in the working directory.
+public void displayAllAnalytics() {
+    try {
+        System.out.print(HistoryAnalytics.analyzeAll(new File(".").toPath()).format(20));
+    } catch (IOException e) {
+        e.printStackTrace();
+    }
+}
+
+
+// Import a file of orders: one merge into the AVL tree, one journal append,
+// one bulk heap insert and one history append. Rejected sells are reported.
+public void importOrders() {
+    System.out.print("Enter order file (BUY|SELL,stock,quantity,price per line): ");
+    String orderFile = in.nextLine().trim();
+    OrderBatch batch;
+    try {
+        batch = OrderBatch.read(orderFile);
+    } catch (IOException e) {
+        System.out.println("Could not read orders: " + e.getMessage());
+        return;
+    }
+
+    try {
+        synchronized (journal) {
+            StockAVLTree.Node merged = portfolioTree.mergeBatch(batch);
+            journal.appendAll(batch);
+            portfolioTree.root = merged;
+            if (lots != null)
+                lots.applyBatch(batch, performanceHeap::insert);
+            else
+                performanceHeap.insertAll(batch.sellNames(), batch.sellQuantities(), batch.sellProfits(), batch.sellCount());
+        }
+    } catch (IOException e) {
+        e.printStackTrace();
+        return;
+    }
+    try {
+        TransactionLogger.forFile(userFile.split("\\.")[0] + "_transaction_history.csv").logAll(batch);
+    } catch (IOException e) {
+        e.printStackTrace();
+    }
+
+    System.out.println(batch.acceptedCount() + " orders applied, " + batch.rejectedCount() + " rejected.");
+    System.out.print(batch.rejectionReport());
+}
+
+
     public static void main(String[] args) {
         User user = new User();
         int choice;
@@ -557,7 +1107,8 @@ public void sellStock() {
             System.out.println("\nStock Market System:");
             System.out.println("1. Register");
             System.out.println("2. Login");
-            System.out.println("3. Exit");
+            System.out.println("3. Analytics (All Users)");
+            System.out.println("4. Exit");
             System.out.print("Enter choice: ");
             choice = sc.nextInt();
             sc.nextLine(); // consume newline
@@ -570,12 +1121,15 @@ public void sellStock() {
                     user.login();
                     break;
                 case 3:
+                    user.displayAllAnalytics();
+                    break;
+                case 4:
                     System.out.println("Exiting program...");
                     break;
                 default:
                     System.out.println("Invalid choice! Please try again.");
             }
-        } while(choice != 3);
+        } while(choice != 4);
     }
 }
 
@@ -0,0 +1,73 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Applying a file of `orders` buys and sells to a portfolio of `size` symbols:
+// one tree descent per order (the interactive path) against a single sorted
+// merge (StockAVLTree.applyBatch).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchImportBenchmark {
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"1000", "100000"})
+    int orders;
+
+    String[] names;
+    OrderBatch batch;
+    StockAVLTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        names = TickerWorkload.tickers(size);
+        int[] sequence = TickerWorkload.accessSequence(size, "uniform", 11);
+        File file = File.createTempFile("orders", ".csv");
+        file.deleteOnExit();
+        Random random = new Random(11);
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+            writer.println("Type,Stock Name,Quantity,Price");
+            for (int i = 0; i < orders; i++) {
+                String stock = names[sequence[i & (TickerWorkload.SEQUENCE_LENGTH - 1)]];
+                writer.println((random.nextBoolean() ? "BUY," : "SELL,") + stock + ","
+                        + (1 + random.nextInt(100)) + "," + (50 + random.nextInt(100)));
+            }
+        }
+        batch = OrderBatch.read(file.getPath());
+    }
+
+    @Setup(Level.Invocation)
+    public void freshPortfolio() {
+        StockAVLTree.Rows rows = new StockAVLTree.Rows();
+        for (String name : names) rows.add(name, 1000, 100.0);
+        tree = new StockAVLTree();
+        tree.bulkLoad(rows);
+    }
+
+    @Benchmark
+    public StockAVLTree perOrder() {
+        for (int i = 0; i < batch.size(); i++) {
+            String stock = batch.stockName(i);
+            if (batch.type(i) == OrderBatch.BUY) {
+                tree.insert(stock, batch.quantity(i), batch.price(i));
+            } else {
+                StockNode node = tree.search(stock);
+                if (node != null && node.quantity >= batch.quantity(i)) tree.delete(stock, batch.quantity(i));
+            }
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public StockAVLTree merged() {
+        tree.applyBatch(batch);
+        return tree;
+    }
+}
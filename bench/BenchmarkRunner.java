@@ -0,0 +1,34 @@
+package stockTrackerProject;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.*;
+
+// JMH entry point. Build with the JMH jars (jmh-core,
+// jmh-generator-annprocess, jopt-simple, commons-math3) on the classpath so
+// the annotation processor generates the harness, e.g.
+//
+//   javac -cp "$JMH_CP" -d out *.java bench/*.java
+//   java -cp "out:$JMH_CP" stockTrackerProject.BenchmarkRunner [jmh options]
+//
+// Any JMH command-line option works (-p size=1000, -p access=zipfian,
+// a benchmark regex, ...). The GC profiler is always on so allocation rate
+// (gc.alloc.rate.norm, bytes per op) is reported next to throughput and the
+// SampleTime percentiles, and results are kept in bench_result.json so later
+// runs can be compared against a baseline.
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(cli)
+                .addProfiler(GCProfiler.class);
+        if (cli.getIncludes().isEmpty())
+            options.include("stockTrackerProject\\..*Benchmark");
+        if (!cli.getResult().hasValue())
+            options.result("bench_result.json");
+        if (!cli.getResultFormat().hasValue())
+            options.resultFormat(ResultFormatType.JSON);
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package stockTrackerProject;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.openjdk.jmh.annotations.*;
+
+// Shared portfolio under 1, 4 and 16 threads doing a mix of lookups and
+// buy-then-sell pairs: the copy-on-write ConcurrentStockAVLTree ("cow")
+// against the plain StockAVLTree behind a read-write lock ("rwlock") or a
+// single monitor ("synchronized"). readPercent is the share of lookups.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentTreeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Portfolio {
+        @Param({"100000"})
+        int size;
+
+        @Param({"90", "50"})
+        int readPercent;
+
+        @Param({"cow", "rwlock", "synchronized"})
+        String impl;
+
+        String[] names;
+        ConcurrentStockAVLTree cow;
+        StockAVLTree plain;
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            names = TickerWorkload.tickers(size);
+            cow = new ConcurrentStockAVLTree();
+            plain = new StockAVLTree();
+            StockAVLTree.Rows rows = new StockAVLTree.Rows();
+            for (String name : names) {
+                rows.add(name, 1_000_000_000, 100.0);
+                cow.insert(name, 1_000_000_000, 100.0);
+            }
+            plain.bulkLoad(rows);
+        }
+
+        StockNode search(String name) {
+            switch (impl) {
+                case "cow":
+                    return cow.search(name);
+                case "rwlock":
+                    lock.readLock().lock();
+                    try {
+                        return plain.search(name);
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                default:
+                    synchronized (this) {
+                        return plain.search(name);
+                    }
+            }
+        }
+
+        // Buy one share and sell it again, so the portfolio does not drift.
+        void trade(String name) {
+            switch (impl) {
+                case "cow":
+                    cow.insert(name, 1, 101.0);
+                    cow.delete(name, 1);
+                    break;
+                case "rwlock":
+                    lock.writeLock().lock();
+                    try {
+                        plain.insert(name, 1, 101.0);
+                        plain.delete(name, 1);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    break;
+                default:
+                    synchronized (this) {
+                        plain.insert(name, 1, 101.0);
+                        plain.delete(name, 1);
+                    }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+        final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+    private static Object op(Portfolio p, Caller c) {
+        String name = p.names[c.random.nextInt(p.names.length)];
+        if (c.random.nextInt(100) < p.readPercent) return p.search(name);
+        p.trade(name);
+        return name;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object threads1(Portfolio p, Caller c) {
+        return op(p, c);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object threads4(Portfolio p, Caller c) {
+        return op(p, c);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object threads16(Portfolio p, Caller c) {
+        return op(p, c);
+    }
+}
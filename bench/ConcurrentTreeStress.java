@@ -0,0 +1,129 @@
+package stockTrackerProject;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Stress run for ConcurrentStockAVLTree: writers buy and sell their own
+// disjoint sets of tickers while readers search, scan and check every version
+// they see (name order, AVL balance, heights and subtree aggregates). At the
+// end each writer's positions must match what it traded. Exits non-zero on any
+// violation.
+//
+//   java -cp out stockTrackerProject.ConcurrentTreeStress [writers] [readers] [seconds]
+public class ConcurrentTreeStress {
+    public static void main(String[] args) throws Exception {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        int keysPerWriter = 2000;
+
+        ConcurrentStockAVLTree tree = new ConcurrentStockAVLTree();
+        String[] names = TickerWorkload.tickers(writers * keysPerWriter);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong reads = new AtomicLong(), writes = new AtomicLong();
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        ExecutorService pool = Executors.newFixedThreadPool(writers + readers);
+        List<Future<int[]>> expected = new ArrayList<>();
+
+        for (int w = 0; w < writers; w++) {
+            int first = w * keysPerWriter;
+            expected.add(pool.submit(() -> {
+                Random random = new Random(first);
+                int[] held = new int[keysPerWriter];
+                while (!stop.get()) {
+                    int k = random.nextInt(keysPerWriter);
+                    String name = names[first + k];
+                    if (held[k] == 0 || random.nextBoolean()) {
+                        int qty = 1 + random.nextInt(10);
+                        tree.insert(name, qty, 10 + random.nextInt(90));
+                        held[k] += qty;
+                    } else {
+                        // Often the whole position, so nodes come and go.
+                        int qty = random.nextBoolean() ? held[k] : 1 + random.nextInt(held[k]);
+                        if (!tree.delete(name, qty)) failures.add("sell of a held position refused: " + name);
+                        held[k] -= qty;
+                    }
+                    writes.incrementAndGet();
+                }
+                return held;
+            }));
+        }
+        for (int r = 0; r < readers; r++) {
+            int seed = r;
+            pool.submit(() -> {
+                Random random = new Random(seed);
+                ConcurrentStockAVLTree.Cursor cursor = tree.cursor();
+                while (!stop.get()) {
+                    if (random.nextInt(50) == 0) {
+                        String problem = check(tree.snapshot().root);
+                        if (problem != null) failures.add(problem);
+                    } else if (random.nextInt(10) == 0) {
+                        String previous = null;
+                        cursor.range(names[random.nextInt(names.length)], "T9999999");
+                        for (int i = 0; i < 100; i++) {
+                            StockNode node = cursor.next();
+                            if (node == null) break;
+                            if (previous != null && previous.compareTo(node.stockName) >= 0)
+                                failures.add("cursor out of order at " + node.stockName);
+                            previous = node.stockName;
+                        }
+                    } else {
+                        StockNode node = tree.search(names[random.nextInt(names.length)]);
+                        if (node != null && node.quantity <= 0) failures.add("empty position " + node.stockName);
+                    }
+                    reads.incrementAndGet();
+                }
+            });
+        }
+
+        Thread.sleep(seconds * 1000);
+        stop.set(true);
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+
+        long positions = 0;
+        for (int w = 0; w < writers; w++) {
+            int[] held = expected.get(w).get();
+            for (int k = 0; k < keysPerWriter; k++) {
+                StockNode node = tree.search(names[w * keysPerWriter + k]);
+                int actual = node == null ? 0 : node.quantity;
+                if (actual != held[k]) failures.add(names[w * keysPerWriter + k] + ": " + actual + " != " + held[k]);
+                if (held[k] > 0) positions++;
+            }
+        }
+        if (tree.size() != positions) failures.add("size " + tree.size() + " != " + positions);
+        String problem = check(tree.snapshot().root);
+        if (problem != null) failures.add(problem);
+
+        System.out.printf("%d writers, %d readers, %ds: %d writes, %d reads, %d positions, %d failures%n",
+                writers, readers, seconds, writes.get(), reads.get(), positions, failures.size());
+        failures.stream().limit(20).forEach(System.out::println);
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    // Null if the subtree is a valid AVL tree with correct aggregates.
+    static String check(StockNode root) {
+        return check(root, null, null);
+    }
+
+    private static String check(StockNode node, String low, String high) {
+        if (node == null) return null;
+        if ((low != null && node.stockName.compareTo(low) <= 0)
+                || (high != null && node.stockName.compareTo(high) >= 0))
+            return "order violated at " + node.stockName;
+        String problem = check(node.left, low, node.stockName);
+        if (problem == null) problem = check(node.right, node.stockName, high);
+        if (problem != null) return problem;
+        int lh = ConcurrentStockAVLTree.height(node.left), rh = ConcurrentStockAVLTree.height(node.right);
+        if (Math.abs(lh - rh) > 1) return "unbalanced at " + node.stockName;
+        if (node.height != Math.max(lh, rh) + 1) return "bad height at " + node.stockName;
+        if (node.size != ConcurrentStockAVLTree.size(node.left) + ConcurrentStockAVLTree.size(node.right) + 1)
+            return "bad size at " + node.stockName;
+        if (node.totalQuantity != ConcurrentStockAVLTree.totalQuantity(node.left)
+                + ConcurrentStockAVLTree.totalQuantity(node.right) + node.quantity)
+            return "bad quantity total at " + node.stockName;
+        if (node.quantity <= 0) return "empty position " + node.stockName;
+        return null;
+    }
+}
@@ -0,0 +1,82 @@
+package stockTrackerProject;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+
+// The console engine (User.java) lives in the default package, which a named
+// package cannot import. The benchmarks reach it through method handles held
+// in static finals, which the JIT treats as constants and inlines.
+final class ConsoleEngine {
+    private static final MethodHandle NEW_HEAP;
+    private static final MethodHandle HEAP_INSERT;
+    private static final MethodHandle HEAP_EXTRACT_MAX;
+    private static final MethodHandle NEW_TREE;
+    private static final MethodHandle NEW_USER;
+    private static final MethodHandle SET_PORTFOLIO_FILE;
+    private static final MethodHandle SET_PORTFOLIO_TREE;
+    private static final MethodHandle LOAD_PORTFOLIO;
+    private static final MethodHandle GET_JOURNAL;
+    private static final MethodHandle LOG_TRANSACTION;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> heap = Class.forName("PerformanceHeap");
+            Class<?> tree = Class.forName("StockAVLTree");
+            Class<?> user = Class.forName("User");
+            NEW_HEAP = lookup.unreflectConstructor(accessible(heap.getDeclaredConstructor()));
+            HEAP_INSERT = lookup.unreflect(accessible(
+                    heap.getDeclaredMethod("insert", String.class, int.class, double.class)));
+            HEAP_EXTRACT_MAX = lookup.unreflect(accessible(heap.getDeclaredMethod("extractMax")));
+            NEW_TREE = lookup.unreflectConstructor(accessible(tree.getDeclaredConstructor()));
+            NEW_USER = lookup.unreflectConstructor(accessible(user.getDeclaredConstructor()));
+            SET_PORTFOLIO_FILE = lookup.unreflectSetter(accessible(user.getDeclaredField("portfolioFile")));
+            SET_PORTFOLIO_TREE = lookup.unreflectSetter(accessible(user.getDeclaredField("portfolioTree")));
+            LOAD_PORTFOLIO = lookup.unreflect(accessible(user.getDeclaredMethod("loadPortfolio")));
+            GET_JOURNAL = lookup.unreflectGetter(accessible(user.getDeclaredField("journal")));
+            LOG_TRANSACTION = lookup.unreflect(accessible(user.getDeclaredMethod("logTransaction",
+                    String.class, String.class, String.class, int.class, double.class)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private ConsoleEngine() {}
+
+    private static <T extends AccessibleObject> T accessible(T member) {
+        member.setAccessible(true);
+        return member;
+    }
+
+    static Object newHeap() throws Throwable {
+        return NEW_HEAP.invoke();
+    }
+
+    static void heapInsert(Object heap, String stockName, int quantity, double profit) throws Throwable {
+        HEAP_INSERT.invoke(heap, stockName, quantity, profit);
+    }
+
+    static Object heapExtractMax(Object heap) throws Throwable {
+        return HEAP_EXTRACT_MAX.invoke(heap);
+    }
+
+    static Object newUser(String portfolioFile) throws Throwable {
+        Object user = NEW_USER.invoke();
+        SET_PORTFOLIO_FILE.invoke(user, portfolioFile);
+        return user;
+    }
+
+    // Reloads the portfolio into a fresh tree, as login does, then closes the
+    // trade journal the load opened so its flusher threads do not pile up.
+    static void loadPortfolio(Object user) throws Throwable {
+        SET_PORTFOLIO_TREE.invoke(user, NEW_TREE.invoke());
+        LOAD_PORTFOLIO.invoke(user);
+        TradeJournal journal = (TradeJournal) GET_JOURNAL.invoke(user);
+        if (journal != null) journal.close();
+    }
+
+    static void logTransaction(Object user, String username, String type, String stockName,
+                               int quantity, double price) throws Throwable {
+        LOG_TRANSACTION.invoke(user, username, type, stockName, quantity, price);
+    }
+}
@@ -0,0 +1,70 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Parsing a `size`-row portfolio CSV into loader rows: BufferedReader.readLine
+// + split + Integer/Double.parseDouble (the old loaders) against CsvReader on
+// the file's bytes. Prices are averages as exportToCSV writes them ("typed")
+// or full-precision 16-17 digit doubles, which take CsvReader's checked divide.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CsvParseBenchmark {
+    @Param({"100000", "1000000"})
+    int size;
+
+    @Param({"typed", "fullPrecision"})
+    String prices;
+
+    Path file;
+    final CsvReader reader = new CsvReader();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("stock-bench", ".csv");
+        String[] names = TickerWorkload.tickers(size);
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file.toFile())))) {
+            writer.println("Stock Name,Quantity,Average Price");
+            for (int i = 0; i < size; i++) {
+                double price = prices.equals("typed") ? 10.0 + i % 1000 / 8.0 : 100.0 / (3 + i % 97);
+                writer.println(names[i] + "," + (100 + i % 50) + "," + price);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public StockAVLTree.Rows readLineSplit() throws IOException {
+        StockAVLTree.Rows rows = new StockAVLTree.Rows();
+        try (BufferedReader br = new BufferedReader(new FileReader(file.toFile()))) {
+            br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length >= 3)
+                    rows.add(parts[0], Integer.parseInt(parts[1]), Double.parseDouble(parts[2]));
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public StockAVLTree.Rows csvReader() throws IOException {
+        StockAVLTree.Rows rows = new StockAVLTree.Rows();
+        reader.readAll(file, row -> {
+            if (row.lineNumber() > 1 && row.fieldCount() >= 3)
+                rows.add(row.string(0), row.parseInt(1), row.parseDouble(2));
+        });
+        return rows;
+    }
+}
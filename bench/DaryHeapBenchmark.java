@@ -0,0 +1,89 @@
+package stockTrackerProject;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Original object heap vs the primitive d-ary heap at arity 2, 4 and 8:
+// steady-state insert + extractMax at `size` trades, and bulk loading `size`
+// historical trades (n inserts vs one O(n) buildHeap).
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DaryHeapBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"2", "4", "8"})
+    int arity;
+
+    String[] names;
+    int[] quantities;
+    double[] profits;
+    int cursor;
+
+    LegacyPerformanceHeap legacy;
+    DaryTradeHeap dary;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] tickers = TickerWorkload.tickers(5000);
+        Random random = new Random(3);
+        names = new String[size];
+        quantities = new int[size];
+        profits = new double[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = tickers[random.nextInt(tickers.length)];
+            quantities[i] = 1 + random.nextInt(500);
+            profits[i] = random.nextGaussian() * 1_000;
+        }
+        legacy = new LegacyPerformanceHeap();
+        for (int i = 0; i < size; i++) legacy.insert(names[i], quantities[i], profits[i]);
+        dary = new DaryTradeHeap(arity, size + 1);
+        dary.buildHeap(names, quantities, profits, size);
+    }
+
+    @Benchmark
+    public Object legacyInsertThenExtractMax() {
+        int i = cursor++ % size;
+        legacy.insert(names[i], quantities[i], profits[i]);
+        return legacy.extractMax();
+    }
+
+    @Benchmark
+    public double daryInsertThenRemoveMax() {
+        int i = cursor++ % size;
+        dary.insert(names[i], quantities[i], profits[i]);
+        double max = dary.maxProfit();
+        dary.removeMax();
+        return max;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void legacyBulkLoad(Blackhole bh) {
+        LegacyPerformanceHeap heap = new LegacyPerformanceHeap();
+        for (int i = 0; i < size; i++) heap.insert(names[i], quantities[i], profits[i]);
+        bh.consume(heap);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void daryInsertEach(Blackhole bh) {
+        DaryTradeHeap heap = new DaryTradeHeap(arity, size);
+        for (int i = 0; i < size; i++) heap.insert(names[i], quantities[i], profits[i]);
+        bh.consume(heap);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void daryBuildHeap(Blackhole bh) {
+        DaryTradeHeap heap = new DaryTradeHeap(arity, size);
+        heap.buildHeap(names, quantities, profits, size);
+        bh.consume(heap);
+    }
+}
@@ -0,0 +1,70 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// HistoryAnalytics over `users` histories of `rows` trades each, on a
+// fork-join pool of `threads` workers (0 = one per core), to show how the
+// range split scales. The binary mirrors are built once per trial.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryAnalyticsBenchmark {
+    @Param({"1", "8"})
+    int users;
+
+    @Param({"1000000"})
+    int rows;
+
+    @Param({"1", "0"})
+    int threads;
+
+    Path dir;
+    List<HistoryFile> histories;
+    ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("stock-bench");
+        String[] names = TickerWorkload.tickers(500);
+        Random random = new Random(3);
+        histories = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            Path csv = dir.resolve("user" + u + TransactionLogger.HISTORY_SUFFIX);
+            try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(csv.toFile())))) {
+                writer.print(TransactionLogger.HEADER);
+                for (int i = 0; i < rows; i++) {
+                    int second = i % 60, minute = i / 60 % 60, hour = i / 3600 % 24, day = 1 + i / 86400 % 28;
+                    writer.printf(Locale.ROOT, "%s,%s,%d,%.2f,2024-02-%02d %02d:%02d:%02d%n",
+                            random.nextInt(3) == 0 ? "SELL" : "BUY", names[random.nextInt(names.length)],
+                            1 + random.nextInt(100), 10 + random.nextInt(9000) / 100.0, day, hour, minute, second);
+                }
+            }
+            histories.add(HistoryFile.forHistory(csv.toString()));
+        }
+        pool = threads == 0 ? new ForkJoinPool() : new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        for (int u = 0; u < users; u++)
+            HistoryFile.release(dir.resolve("user" + u + TransactionLogger.HISTORY_SUFFIX).toString());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public HistoryAnalytics.Report analyze() {
+        return HistoryAnalytics.analyze(histories, pool);
+    }
+}
@@ -0,0 +1,82 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// "All trades on one day" over a `rows`-row history (about 2,900 trades a
+// day): a scan of every row's timestamp against HistoryFile.between on the
+// sparse index.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryRangeBenchmark {
+    @Param({"100000", "1000000"})
+    int rows;
+
+    Path dir;
+    String csv;
+    HistoryFile history;
+    long[] dayStarts;
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("stock-bench");
+        csv = dir.resolve("bench" + TransactionLogger.HISTORY_SUFFIX).toString();
+        String[] names = TickerWorkload.tickers(500);
+        Random random = new Random(3);
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(csv)))) {
+            writer.print(TransactionLogger.HEADER);
+            LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+            DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+            long second = 0;
+            for (int i = 0; i < rows; i++) {
+                second += random.nextInt(60);
+                writer.printf(Locale.ROOT, "%s,%s,%d,%.2f,%s%n", random.nextInt(3) == 0 ? "SELL" : "BUY",
+                        names[random.nextInt(names.length)], 1 + random.nextInt(100),
+                        10 + random.nextInt(9000) / 100.0,
+                        start.plusSeconds(second).format(format));
+            }
+        }
+        history = HistoryFile.forHistory(csv);
+        long first = history.epochNanos(0), last = history.epochNanos(history.size() - 1);
+        dayStarts = new long[64];
+        for (int i = 0; i < dayStarts.length; i++)
+            dayStarts[i] = first + (long) (random.nextDouble() * (last - first));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        HistoryFile.release(csv);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    private static final long DAY = 86_400_000_000_000L;
+
+    @Benchmark
+    public long fullScan() {
+        long from = dayStarts[cursor++ & 63], to = from + DAY, matched = 0;
+        for (long k = 0, n = history.size(); k < n; k++) {
+            long t = history.epochNanos(k);
+            if (t >= from && t < to) matched++;
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public long indexed() {
+        long from = dayStarts[cursor++ & 63];
+        return history.between(from, from + DAY, k -> { });
+    }
+}
@@ -0,0 +1,59 @@
+package stockTrackerProject;
+
+import java.util.*;
+
+// The original ArrayList-of-objects PerformanceHeap (binary, Collections.swap,
+// recursive heapify), kept as the baseline for DaryHeapBenchmark.
+final class LegacyPerformanceHeap {
+    static final class TradePerformance {
+        final String stockName;
+        final int quantity;
+        final double profit;
+
+        TradePerformance(String stockName, int quantity, double profit) {
+            this.stockName = stockName;
+            this.quantity = quantity;
+            this.profit = profit;
+        }
+    }
+
+    final List<TradePerformance> heap = new ArrayList<>();
+
+    private int parent(int i) { return (i - 1) / 2; }
+    private int leftChild(int i) { return 2 * i + 1; }
+    private int rightChild(int i) { return 2 * i + 2; }
+
+    void insert(String stockName, int quantity, double profit) {
+        heap.add(new TradePerformance(stockName, quantity, profit));
+        int index = heap.size() - 1;
+        while (index != 0 && heap.get(parent(index)).profit < heap.get(index).profit) {
+            Collections.swap(heap, index, parent(index));
+            index = parent(index);
+        }
+    }
+
+    TradePerformance extractMax() {
+        if (heap.size() == 0) return null;
+        TradePerformance max = heap.get(0);
+        TradePerformance last = heap.remove(heap.size() - 1);
+        if (heap.size() > 0) {
+            heap.set(0, last);
+            heapify(0);
+        }
+        return max;
+    }
+
+    private void heapify(int i) {
+        int left = leftChild(i);
+        int right = rightChild(i);
+        int largest = i;
+        if (left < heap.size() && heap.get(left).profit > heap.get(largest).profit)
+            largest = left;
+        if (right < heap.size() && heap.get(right).profit > heap.get(largest).profit)
+            largest = right;
+        if (largest != i) {
+            Collections.swap(heap, i, largest);
+            heapify(largest);
+        }
+    }
+}
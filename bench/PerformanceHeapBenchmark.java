@@ -0,0 +1,82 @@
+package stockTrackerProject;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Cost of recording a trade and of reading the leaderboard with `size`
+// trades already recorded. The dashboard heap only grows, so it is measured
+// by filling a fresh heap; the console heap is held at a steady size by
+// pairing every insert with an extractMax.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PerformanceHeapBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    int size;
+
+    @Param({"uniform", "zipfian"})
+    String access;
+
+    String[] names;
+    int[] sequence;
+    double[] profits;
+    int cursor;
+
+    PerformanceHeap dashboardHeap;
+    Object consoleHeap;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        names = TickerWorkload.tickers(size);
+        sequence = TickerWorkload.accessSequence(size, access, 7);
+        profits = new double[TickerWorkload.SEQUENCE_LENGTH];
+        Random random = new Random(7);
+        for (int i = 0; i < profits.length; i++) profits[i] = random.nextGaussian() * 1_000;
+
+        dashboardHeap = new PerformanceHeap();
+        consoleHeap = ConsoleEngine.newHeap();
+        for (int i = 0; i < size; i++) {
+            int k = i & (TickerWorkload.SEQUENCE_LENGTH - 1);
+            dashboardHeap.insert(names[sequence[k]], 10, profits[k]);
+            ConsoleEngine.heapInsert(consoleHeap, names[sequence[k]], 10, profits[k]);
+        }
+    }
+
+    // "Top Trades" button: copy and sort of the whole history.
+    @Benchmark
+    public List<Trade> dashboardGetSortedTrades() {
+        return dashboardHeap.getSortedTrades();
+    }
+
+    // "Top Trades" button in top-K mode: a ranked O(K) read of the boards.
+    @Benchmark
+    public double dashboardTopTrades() {
+        TopTrades top = dashboardHeap.getTopTrades();
+        double sum = 0;
+        for (int i = 0; i < top.bestCount(); i++) sum += top.bestProfit(i) * top.bestQuantity(i);
+        for (int i = 0; i < top.worstCount(); i++) sum += top.worstProfit(i) * top.worstQuantity(i);
+        return sum;
+    }
+
+    // Recording `size` sells into an empty heap.
+    @Benchmark
+    public PerformanceHeap dashboardFill() {
+        PerformanceHeap heap = new PerformanceHeap();
+        for (int i = 0; i < size; i++) {
+            int k = i & (TickerWorkload.SEQUENCE_LENGTH - 1);
+            heap.insert(names[sequence[k]], 10, profits[k]);
+        }
+        return heap;
+    }
+
+    @Benchmark
+    public Object consoleInsertThenExtractMax() throws Throwable {
+        int k = cursor++ & (TickerWorkload.SEQUENCE_LENGTH - 1);
+        ConsoleEngine.heapInsert(consoleHeap, names[sequence[k]], 10, profits[k]);
+        return ConsoleEngine.heapExtractMax(consoleHeap);
+    }
+}
@@ -0,0 +1,78 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+
+// File costs paid around every trade and at login: the full portfolio
+// rewrite, the portfolio load and the transaction-log append. Files go to a
+// scratch directory that is removed after the trial.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PortfolioIOBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    int size;
+
+    @Param({"uniform", "zipfian"})
+    String access;
+
+    Path dir;
+    String portfolioFile;
+    String exportFile;
+    String username;
+    StockAVLTree tree;
+    Object consoleUser;
+    String[] names;
+    int[] sequence;
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        dir = Files.createTempDirectory("stock-bench");
+        portfolioFile = dir.resolve("bench_portfolio.csv").toString();
+        exportFile = dir.resolve("export_portfolio.csv").toString();
+        // User.logTransaction derives "<username>_transaction_history.csv".
+        username = dir.resolve("bench").toString();
+
+        names = TickerWorkload.tickers(size);
+        sequence = TickerWorkload.accessSequence(size, access, 11);
+        tree = new StockAVLTree();
+        for (int i = 0; i < size; i++) tree.insert(names[i], 100 + i % 50, 10.0 + i % 1000 / 8.0);
+        tree.exportToCSV(portfolioFile);
+        consoleUser = ConsoleEngine.newUser(portfolioFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    // What buyStock/sellStock pay after every trade today.
+    @Benchmark
+    public void exportToCSV() {
+        tree.exportToCSV(exportFile);
+    }
+
+    // Login-time parse and insert of the whole portfolio file.
+    @Benchmark
+    public void loadPortfolio() throws Throwable {
+        ConsoleEngine.loadPortfolio(consoleUser);
+    }
+
+    // One transaction-history append; independent of portfolio size, but the
+    // ticker follows the access pattern like a real trade would.
+    @Benchmark
+    public void logTransaction() throws Throwable {
+        String name = names[sequence[cursor++ & (TickerWorkload.SEQUENCE_LENGTH - 1)]];
+        ConsoleEngine.logTransaction(consoleUser, username, "BUY", name, 10, 101.25);
+    }
+}
@@ -0,0 +1,73 @@
+package stockTrackerProject;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Portfolio persistence at login and checkpoint: the `size`-row CSV against
+// the binary PortfolioSnapshot, loaded into a tree and written from one.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PortfolioSnapshotBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    Path csv;
+    Path snapshot;
+    Path scratch;
+    StockAVLTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csv = Files.createTempFile("stock-bench", ".csv");
+        snapshot = Files.createTempFile("stock-bench", ".snap");
+        scratch = Files.createTempFile("stock-bench", ".out");
+        String[] names = TickerWorkload.tickers(size);
+        StockAVLTree.Rows rows = new StockAVLTree.Rows();
+        for (int i = 0; i < size; i++) rows.add(names[i], 100 + i % 50, 100.0 / (3 + i % 97));
+        tree = new StockAVLTree();
+        tree.bulkLoad(rows);
+        tree.exportToCSV(csv.toString());
+        PortfolioSnapshot.write(snapshot, 0, tree::writeRows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(scratch);
+        Files.deleteIfExists(PortfolioSnapshot.previous(scratch));
+    }
+
+    @Benchmark
+    public StockAVLTree loadCSV() throws IOException {
+        StockAVLTree loaded = new StockAVLTree();
+        loaded.loadCSV(csv.toFile());
+        return loaded;
+    }
+
+    @Benchmark
+    public StockAVLTree loadSnapshot() throws IOException {
+        StockAVLTree.Rows rows = new StockAVLTree.Rows();
+        PortfolioSnapshot.read(snapshot, rows::add);
+        StockAVLTree loaded = new StockAVLTree();
+        loaded.bulkLoad(rows);
+        return loaded;
+    }
+
+    @Benchmark
+    public void writeCSV() {
+        tree.exportToCSV(scratch.toString());
+    }
+
+    // Includes the fsync and renames a checkpoint pays.
+    @Benchmark
+    public void writeSnapshot() throws IOException {
+        PortfolioSnapshot.write(scratch, 0, tree::writeRows);
+    }
+}
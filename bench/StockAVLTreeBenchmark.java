@@ -0,0 +1,97 @@
+package stockTrackerProject;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Cost of a single buy, sell and lookup against a portfolio of `size` symbols,
+// of the aggregate queries (range valuation, rank, select) and of cursor scans.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StockAVLTreeBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    int size;
+
+    @Param({"uniform", "zipfian"})
+    String access;
+
+    StockAVLTree tree;
+    StockAVLTree.Cursor scan;
+    String[] names;
+    String[] absentNames;
+    int[] sequence;
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        names = TickerWorkload.tickers(size);
+        // Sorts right after names[i], so insert/delete touch the same path.
+        absentNames = new String[size];
+        for (int i = 0; i < size; i++) absentNames[i] = names[i] + "X";
+        sequence = TickerWorkload.accessSequence(size, access, 42);
+        tree = new StockAVLTree();
+        // Deep positions so a trial of partial sells never empties a node.
+        for (String name : names) tree.insert(name, 1_000_000_000, 100.0);
+        scan = tree.cursor();
+    }
+
+    private int nextKey() {
+        return sequence[cursor++ & (TickerWorkload.SEQUENCE_LENGTH - 1)];
+    }
+
+    @Benchmark
+    public StockNode search() {
+        return tree.search(names[nextKey()]);
+    }
+
+    // Buying more of a held stock: a descent plus the average-price update.
+    @Benchmark
+    public void buyExisting() {
+        tree.insert(names[nextKey()], 1, 101.0);
+    }
+
+    // Selling part of a held stock: a descent with no structural change.
+    @Benchmark
+    public void sellPartial() {
+        tree.delete(names[nextKey()], 1);
+    }
+
+    // Opening and fully closing a position: insert and delete with rotations.
+    @Benchmark
+    public void openAndClosePosition(Blackhole bh) {
+        String name = absentNames[nextKey()];
+        tree.insert(name, 10, 50.0);
+        tree.delete(name, 10);
+        bh.consume(tree.root);
+    }
+
+    // Cost basis of the holdings between two held tickers.
+    @Benchmark
+    public StockAVLTree.Valuation valueRange() {
+        int a = nextKey(), b = nextKey();
+        return tree.valueRange(names[Math.min(a, b)], names[Math.max(a, b)]);
+    }
+
+    @Benchmark
+    public int rank() {
+        return tree.rank(names[nextKey()]);
+    }
+
+    @Benchmark
+    public StockNode select() {
+        return tree.select(nextKey());
+    }
+
+    // Type-ahead: the first 8 holdings matching a ticker minus its last digit.
+    @Benchmark
+    public void prefixSuggestions(Blackhole bh) {
+        String name = names[nextKey()];
+        scan.prefix(name.substring(0, name.length() - 1));
+        StockNode node;
+        for (int i = 0; i < 8 && (node = scan.next()) != null; i++) bh.consume(node);
+    }
+}
@@ -0,0 +1,81 @@
+package stockTrackerProject;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// A stream of `trades` buys and sells over `symbols` tickers, realized
+// against tax lots by each method, next to the blended average cost the tree
+// keeps ("average"). Sells are sized so every SELL draws on a few lots.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaxLotsBenchmark {
+    @Param({"100", "10000"})
+    int symbols;
+
+    @Param({"1000000"})
+    int trades;
+
+    @Param({"average", "FIFO", "LIFO", "HIGHEST_COST"})
+    String method;
+
+    String[] names;
+    boolean[] buys;
+    int[] stocks;
+    int[] quantities;
+    double[] prices;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] tickers = TickerWorkload.tickers(symbols);
+        Random random = new Random(11);
+        names = tickers;
+        buys = new boolean[trades];
+        stocks = new int[trades];
+        quantities = new int[trades];
+        prices = new double[trades];
+        long[] held = new long[symbols];
+        for (int i = 0; i < trades; i++) {
+            int s = random.nextInt(symbols);
+            boolean buy = held[s] == 0 || random.nextInt(3) > 0;
+            int quantity = buy ? 1 + random.nextInt(100) : 1 + random.nextInt((int) Math.min(held[s], 250));
+            held[s] += buy ? quantity : -quantity;
+            buys[i] = buy;
+            stocks[i] = s;
+            quantities[i] = quantity;
+            prices[i] = 10 + random.nextInt(9000) / 100.0;
+        }
+    }
+
+    @Benchmark
+    public double realize() {
+        double[] total = new double[1];
+        HistoryReplay.TradeSink sink = (stock, quantity, profit) -> total[0] += profit;
+        if (method.equals("average")) {
+            long[] held = new long[symbols];
+            double[] averageCost = new double[symbols];
+            for (int i = 0; i < trades; i++) {
+                int s = stocks[i];
+                if (buys[i]) {
+                    double cost = averageCost[s] * held[s] + prices[i] * quantities[i];
+                    held[s] += quantities[i];
+                    averageCost[s] = cost / held[s];
+                } else {
+                    sink.trade(names[s], quantities[i], (prices[i] - averageCost[s]) * quantities[i]);
+                    held[s] -= quantities[i];
+                }
+            }
+        } else {
+            TaxLots lots = new TaxLots(TaxLots.Method.valueOf(method));
+            for (int i = 0; i < trades; i++) {
+                if (buys[i]) lots.buy(names[stocks[i]], quantities[i], prices[i]);
+                else lots.sell(names[stocks[i]], quantities[i], prices[i], 0, sink);
+            }
+        }
+        return total[0];
+    }
+}
@@ -0,0 +1,85 @@
+package stockTrackerProject;
+
+import java.util.*;
+
+// Synthetic tickers and access sequences shared by the benchmarks.
+// "uniform" picks every held symbol with equal probability, "zipfian" follows
+// a Zipf distribution (s = 0.99, as in YCSB) so a few hot tickers dominate.
+final class TickerWorkload {
+    static final int SEQUENCE_LENGTH = 1 << 16;  // power of two, indexed with a mask
+
+    private TickerWorkload() {}
+
+    // Ticker for the i-th held symbol. Fixed width so sort order matches i.
+    static String ticker(int i) {
+        String digits = Integer.toString(i);
+        StringBuilder sb = new StringBuilder("T");
+        for (int pad = digits.length(); pad < 7; pad++) sb.append('0');
+        return sb.append(digits).toString();
+    }
+
+    static String[] tickers(int size) {
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) names[i] = ticker(i);
+        return names;
+    }
+
+    // Indices into tickers(size), SEQUENCE_LENGTH long.
+    static int[] accessSequence(int size, String access, long seed) {
+        Random random = new Random(seed);
+        int[] sequence = new int[SEQUENCE_LENGTH];
+        if (access.equals("uniform")) {
+            for (int i = 0; i < sequence.length; i++) sequence[i] = random.nextInt(size);
+            return sequence;
+        }
+        if (!access.equals("zipfian"))
+            throw new IllegalArgumentException("Unknown access pattern: " + access);
+
+        // Zipf ranks are scattered over the key space so the hot keys are not
+        // all neighbours in the tree.
+        int[] rankToKey = new int[size];
+        for (int i = 0; i < size; i++) rankToKey[i] = i;
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = rankToKey[i];
+            rankToKey[i] = rankToKey[j];
+            rankToKey[j] = t;
+        }
+        ZipfianGenerator zipf = new ZipfianGenerator(size, 0.99, random);
+        for (int i = 0; i < sequence.length; i++) sequence[i] = rankToKey[zipf.next()];
+        return sequence;
+    }
+
+    // Gray et al. "Quickly generating billion-record synthetic databases";
+    // O(n) setup, O(1) per sample.
+    static final class ZipfianGenerator {
+        private final int items;
+        private final double theta, zetan, alpha, eta;
+        private final Random random;
+
+        ZipfianGenerator(int items, double theta, Random random) {
+            this.items = items;
+            this.theta = theta;
+            this.random = random;
+            double zeta2 = zeta(2, theta);
+            this.zetan = zeta(items, theta);
+            this.alpha = 1.0 / (1.0 - theta);
+            this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2 / zetan);
+        }
+
+        private static double zeta(int n, double theta) {
+            double sum = 0;
+            for (int i = 1; i <= n; i++) sum += 1 / Math.pow(i, theta);
+            return sum;
+        }
+
+        int next() {
+            double u = random.nextDouble();
+            double uz = u * zetan;
+            if (uz < 1.0) return 0;
+            if (uz < 1.0 + Math.pow(0.5, theta)) return Math.min(1, items - 1);
+            int rank = (int) (items * Math.pow(eta * u - eta + 1, alpha));
+            return Math.min(rank, items - 1);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package stockTrackerProject;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Sustained trade logging from several threads sharing one history file,
+// for each durability mode. Run with -t to vary the number of traders.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TransactionLoggerBenchmark {
+    @Param({"FIRE_AND_FORGET", "FLUSH_PER_BATCH", "FSYNC_PER_BATCH"})
+    TransactionLogger.Durability durability;
+
+    Path dir;
+    TransactionLogger logger;
+    String[] names;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("stock-log-bench");
+        logger = TransactionLogger.forFile(dir.resolve("bench_transaction_history.csv").toString(),
+                durability);
+        names = TickerWorkload.tickers(1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.println(logger.stats());
+        logger.close();
+        Files.deleteIfExists(Paths.get(logger.file()));
+        Files.deleteIfExists(dir);
+    }
+
+    @State(Scope.Thread)
+    public static class Trader {
+        int cursor;
+    }
+
+    @Benchmark
+    public void log(Trader trader) throws IOException {
+        logger.log("BUY", names[trader.cursor++ % names.length], 10, 101.25);
+    }
+}
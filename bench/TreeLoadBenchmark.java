@@ -0,0 +1,65 @@
+package stockTrackerProject;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Building the portfolio tree at login from `size` parsed CSV rows: one
+// insert per row (the old loader) against bulkLoad on the sorted rows
+// exportToCSV writes and on a shuffled file.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TreeLoadBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    StockAVLTree.Rows sorted;
+    StockAVLTree.Rows shuffled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] names = TickerWorkload.tickers(size);
+        sorted = new StockAVLTree.Rows();
+        for (int i = 0; i < size; i++) sorted.add(names[i], 100 + i % 50, 10.0 + i % 1000 / 8.0);
+        List<String> order = new ArrayList<>(Arrays.asList(names));
+        Collections.shuffle(order, new Random(5));
+        shuffled = new StockAVLTree.Rows();
+        for (int i = 0; i < size; i++) shuffled.add(order.get(i), 100 + i % 50, 10.0 + i % 1000 / 8.0);
+    }
+
+    @Benchmark
+    public StockAVLTree insertEachSorted() {
+        return insertEach(sorted);
+    }
+
+    @Benchmark
+    public StockAVLTree insertEachShuffled() {
+        return insertEach(shuffled);
+    }
+
+    private static StockAVLTree insertEach(StockAVLTree.Rows rows) {
+        StockAVLTree tree = new StockAVLTree();
+        for (int i = 0; i < rows.count; i++)
+            tree.insert(rows.names[i], rows.quantities[i], rows.prices[i]);
+        return tree;
+    }
+
+    @Benchmark
+    public StockAVLTree bulkLoadSorted() {
+        StockAVLTree tree = new StockAVLTree();
+        tree.bulkLoad(sorted);
+        return tree;
+    }
+
+    // Sorts a copy each time; the shuffled rows themselves are left as they are.
+    @Benchmark
+    public StockAVLTree bulkLoadShuffled() {
+        StockAVLTree tree = new StockAVLTree();
+        tree.bulkLoad(shuffled);
+        return tree;
+    }
+}